@@ -40,6 +40,13 @@ import javax.lang.model.type.TypeMirror;
  */
 public class AnnotationProcessorUtils
 {
+    public static final String NAMESPACE_JAVAX = "javax";
+
+    public static final String NAMESPACE_JAKARTA = "jakarta";
+
+    /** Packages of the JPA annotations. */
+    public static final String[] PERSISTENCE_PACKAGES = {NAMESPACE_JAVAX + ".persistence", NAMESPACE_JAKARTA + ".persistence"};
+
     private static Set<String> LIST_CLASSNAMES = null;
     private static Set<String> SET_CLASSNAMES = null;
     private static Set<String> MAP_CLASSNAMES = null;
@@ -268,6 +275,99 @@ public class AnnotationProcessorUtils
         }
     }
 
+    /**
+     * Convenience method to return if the annotation is the specified JPA annotation, in either the
+     * javax.persistence or jakarta.persistence namespace.
+     * @param ann The annotation
+     * @param simpleName Simple name of the JPA annotation (e.g "Entity")
+     * @return Whether it is that JPA annotation
+     */
+    public static boolean isPersistenceAnnotation(AnnotationMirror ann, String simpleName)
+    {
+        String annTypeName = ann.getAnnotationType().toString();
+        for (String pkg : PERSISTENCE_PACKAGES)
+        {
+            if (annTypeName.length() == pkg.length() + 1 + simpleName.length() && annTypeName.startsWith(pkg) && annTypeName.endsWith(simpleName) &&
+                annTypeName.charAt(pkg.length()) == '.')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accessor for the specified JPA annotation on the element, in either the javax.persistence or jakarta.persistence namespace.
+     * @param elem The element
+     * @param simpleName Simple name of the JPA annotation (e.g "Entity")
+     * @return The annotation, or null if not present
+     */
+    public static AnnotationMirror getPersistenceAnnotation(Element elem, String simpleName)
+    {
+        Iterator<? extends AnnotationMirror> annIter = elem.getAnnotationMirrors().iterator();
+        while (annIter.hasNext())
+        {
+            AnnotationMirror ann = annIter.next();
+            if (isPersistenceAnnotation(ann, simpleName))
+            {
+                return ann;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convenience method to return if the element has the specified JPA annotation, in either namespace.
+     * @param elem The element
+     * @param simpleName Simple name of the JPA annotation (e.g "Entity")
+     * @return Whether the annotation is present
+     */
+    public static boolean hasPersistenceAnnotation(Element elem, String simpleName)
+    {
+        return getPersistenceAnnotation(elem, simpleName) != null;
+    }
+
+    /**
+     * Accessor for the value for an attribute of a JPA annotation, in either namespace.
+     * @param elem The element
+     * @param simpleName Simple name of the JPA annotation (e.g "OneToMany")
+     * @param attribute The attribute we're interested in
+     * @return The value, or null if the annotation is not present or the attribute not specified
+     */
+    public static Object getValueForPersistenceAnnotationAttribute(Element elem, String simpleName, String attribute)
+    {
+        AnnotationMirror ann = getPersistenceAnnotation(elem, simpleName);
+        if (ann != null)
+        {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : ann.getElementValues().entrySet())
+            {
+                if (entry.getKey().getSimpleName().toString().equals(attribute))
+                {
+                    return entry.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Accessor for the JPA namespace ("javax" or "jakarta") of the annotations on the supplied element.
+     * @param elem The element
+     * @return "jakarta" if it has any jakarta.persistence annotation, otherwise "javax"
+     */
+    public static String getPersistenceNamespace(Element elem)
+    {
+        Iterator<? extends AnnotationMirror> annIter = elem.getAnnotationMirrors().iterator();
+        while (annIter.hasNext())
+        {
+            if (annIter.next().getAnnotationType().toString().startsWith(NAMESPACE_JAKARTA + ".persistence."))
+            {
+                return NAMESPACE_JAKARTA;
+            }
+        }
+        return NAMESPACE_JAVAX;
+    }
+
     /**
      * Accessor for the value for an annotation attribute.
      * @param elem The element
@@ -333,6 +433,87 @@ public class AnnotationProcessorUtils
             kind == TypeKind.LONG || kind == TypeKind.SHORT;
     }
 
+    /**
+     * Method to return the constant name for an attribute name, e.g "createdBy" becomes "CREATED_BY".
+     * @param name The attribute name
+     * @return The constant name
+     */
+    public static String getConstantName(String name)
+    {
+        StringBuilder str = new StringBuilder();
+        for (int i=0;i<name.length();i++)
+        {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(name.charAt(i - 1)))
+            {
+                str.append('_');
+            }
+            str.append(Character.toUpperCase(c));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Method to return a (generated code) expression for the hash code of a value of the provided type,
+     * without boxing primitives.
+     * @param type The type of the value
+     * @param expr Expression for the value (e.g "this.name")
+     * @return The hash code expression
+     */
+    public static String getHashCodeExpression(TypeMirror type, String expr)
+    {
+        switch (type.getKind())
+        {
+            case BOOLEAN:
+                return "(" + expr + " ? 1231 : 1237)";
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+                return expr;
+            case LONG:
+                return "(int)(" + expr + " ^ (" + expr + " >>> 32))";
+            case FLOAT:
+                return "Float.floatToIntBits(" + expr + ")";
+            case DOUBLE:
+                return "Long.hashCode(Double.doubleToLongBits(" + expr + "))";
+            case ARRAY:
+                return "java.util.Arrays.hashCode(" + expr + ")";
+            default:
+                return "(" + expr + " == null ? 0 : " + expr + ".hashCode())";
+        }
+    }
+
+    /**
+     * Method to return a (generated code) expression for the equality of two values of the provided type,
+     * without boxing primitives.
+     * @param type The type of the values
+     * @param expr Expression for the first value (e.g "this.name")
+     * @param otherExpr Expression for the second value
+     * @return The equality expression
+     */
+    public static String getEqualsExpression(TypeMirror type, String expr, String otherExpr)
+    {
+        switch (type.getKind())
+        {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+                return expr + " == " + otherExpr;
+            case FLOAT:
+                return "Float.floatToIntBits(" + expr + ") == Float.floatToIntBits(" + otherExpr + ")";
+            case DOUBLE:
+                return "Double.doubleToLongBits(" + expr + ") == Double.doubleToLongBits(" + otherExpr + ")";
+            case ARRAY:
+                return "java.util.Arrays.equals(" + expr + ", " + otherExpr + ")";
+            default:
+                return "java.util.Objects.equals(" + expr + ", " + otherExpr + ")";
+        }
+    }
+
     /**
      * Method to return the declared type name of the provided TypeMirror.
      * @param processingEnv Processing environment
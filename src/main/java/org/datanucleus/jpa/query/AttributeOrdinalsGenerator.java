@@ -0,0 +1,310 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Generator for attribute ordinals and dirty-tracking helpers for entities.
+ * For an entity X in package p, a class X_Ordinals is created in package p containing
+ * <ul>
+ * <li>an int constant per persistent attribute, named as the attribute in upper case (e.g "createdBy" as CREATED_BY),
+ * giving its ordinal. Ordinals are
+ * assigned with the attributes of persistent superclasses first, then in declaration order, so a subclass
+ * entity has the same ordinals for inherited attributes as its superclass.</li>
+ * <li>long constants per 64-bit word for each category of attribute (singular, collection, map, association,
+ * embedded), for use as masks against a long[] bitset of dirty attributes</li>
+ * <li>static methods to create and manipulate such a bitset, and to map between ordinal and attribute name</li>
+ * </ul>
+ */
+public class AttributeOrdinalsGenerator
+{
+    public static final String CLASS_NAME_SUFFIX = "_Ordinals";
+
+    private static final String CODE_INDENT = "    ";
+
+    private static final String[] MASK_CATEGORIES = {"SINGULAR", "COLLECTION", "MAP", "ASSOCIATION", "EMBEDDED"};
+
+    private final JPACriteriaProcessor processor;
+
+    private final ProcessingEnvironment processingEnv;
+
+    public AttributeOrdinalsGenerator(JPACriteriaProcessor processor, ProcessingEnvironment processingEnv)
+    {
+        this.processor = processor;
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Method to generate the ordinals class for the supplied entity.
+     * @param el The entity class element
+     */
+    public void generate(TypeElement el)
+    {
+        String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+        String pkgName = className.substring(0, className.lastIndexOf('.'));
+        String classSimpleName = className.substring(className.lastIndexOf('.') + 1);
+        String ordinalsClassSimpleName = classSimpleName + CLASS_NAME_SUFFIX;
+        System.out.println("DataNucleus : JPA Attribute Ordinals - " + className + " -> " + className + CLASS_NAME_SUFFIX);
+
+        List<MetamodelAttribute> attributes = processor.getAllMetamodelAttributes(el);
+        int numWords = Math.max(1, (attributes.size() + 63) >>> 6);
+
+        // Check the ordinal constant names are unique, and distinct from the other generated members
+        Set<String> reservedNames = new HashSet<String>(Arrays.asList("NAMES", "ATTRIBUTE_COUNT", "WORD_COUNT"));
+        for (String category : MASK_CATEGORIES)
+        {
+            for (int k=0;k<numWords;k++)
+            {
+                reservedNames.add(category + "_MASK_" + k);
+            }
+        }
+        List<String> constantNames = new ArrayList<String>();
+        boolean valid = true;
+        for (MetamodelAttribute attr : attributes)
+        {
+            String constantName = AnnotationProcessorUtils.getConstantName(attr.name);
+            if (!reservedNames.add(constantName))
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Attribute \"" + attr.name + "\" of " + el +
+                    " has ordinal constant name " + constantName + " which clashes with another member of " + ordinalsClassSimpleName, attr.member);
+                valid = false;
+            }
+            constantNames.add(constantName);
+        }
+        if (!valid)
+        {
+            return;
+        }
+        long[][] masks = new long[MASK_CATEGORIES.length][numWords];
+        for (int i=0;i<attributes.size();i++)
+        {
+            boolean[] inCategory = getCategories(attributes.get(i));
+            for (int j=0;j<MASK_CATEGORIES.length;j++)
+            {
+                if (inCategory[j])
+                {
+                    masks[j][i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        try
+        {
+            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(className + CLASS_NAME_SUFFIX, el);
+            Writer w = javaFile.openWriter();
+            try
+            {
+                w.append("package " + pkgName + ";\n");
+                w.append("\n");
+                w.append("import javax.annotation.processing.Generated;\n");
+                w.append("\n");
+                w.append("/**\n");
+                w.append(" * Attribute ordinals and dirty-tracking bitset helpers for " + classSimpleName + ".\n");
+                w.append(" * The bit for attribute ordinal n is bit (n &amp; 63) of word (n &gt;&gt;&gt; 6).\n");
+                w.append(" */\n");
+                w.append("@Generated(value=\"" + processor.getClass().getName() + "\")\n");
+                w.append("public final class " + ordinalsClassSimpleName + "\n");
+                w.append("{\n");
+                for (int i=0;i<attributes.size();i++)
+                {
+                    w.append(CODE_INDENT).append("public static final int " + constantNames.get(i) + " = " + i + ";\n");
+                }
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static final int ATTRIBUTE_COUNT = " + attributes.size() + ";\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static final int WORD_COUNT = " + numWords + ";\n");
+                w.append("\n");
+                for (int j=0;j<MASK_CATEGORIES.length;j++)
+                {
+                    for (int k=0;k<numWords;k++)
+                    {
+                        w.append(CODE_INDENT).append("public static final long " + MASK_CATEGORIES[j] + "_MASK_" + k +
+                            " = 0x" + Long.toHexString(masks[j][k]) + "L;\n");
+                    }
+                }
+                w.append("\n");
+                w.append(CODE_INDENT).append("private static final String[] NAMES = {");
+                for (int i=0;i<attributes.size();i++)
+                {
+                    w.append(i > 0 ? ", " : "").append("\"" + attributes.get(i).name + "\"");
+                }
+                w.append("};\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("private " + ordinalsClassSimpleName + "()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append("}\n");
+
+                // Name <-> ordinal
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static String getName(int ordinal)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return NAMES[ordinal];\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static int getOrdinal(String name)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("switch (name)\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                for (int i=0;i<attributes.size();i++)
+                {
+                    w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("case \"" + attributes.get(i).name + "\":\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return " + i + ";\n");
+                }
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("default:\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return -1;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                w.append(CODE_INDENT).append("}\n");
+
+                // Bitset operations
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static long[] newBitSet()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return new long[WORD_COUNT];\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static void set(long[] bits, int ordinal)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("bits[ordinal >>> 6] |= 1L << ordinal;\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static void unset(long[] bits, int ordinal)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("bits[ordinal >>> 6] &= ~(1L << ordinal);\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static boolean isSet(long[] bits, int ordinal)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return (bits[ordinal >>> 6] & (1L << ordinal)) != 0;\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static void clear(long[] bits)\n");
+                w.append(CODE_INDENT).append("{\n");
+                for (int k=0;k<numWords;k++)
+                {
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("bits[" + k + "] = 0L;\n");
+                }
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("public static boolean isAnySet(long[] bits)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return ");
+                for (int k=0;k<numWords;k++)
+                {
+                    w.append(k > 0 ? " || " : "").append("bits[" + k + "] != 0L");
+                }
+                w.append(";\n");
+                w.append(CODE_INDENT).append("}\n");
+                for (int j=0;j<MASK_CATEGORIES.length;j++)
+                {
+                    String category = MASK_CATEGORIES[j].charAt(0) + MASK_CATEGORIES[j].substring(1).toLowerCase();
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("public static boolean isAny" + category + "Set(long[] bits)\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return ");
+                    for (int k=0;k<numWords;k++)
+                    {
+                        w.append(k > 0 ? " || " : "").append("(bits[" + k + "] & " + MASK_CATEGORIES[j] + "_MASK_" + k + ") != 0L");
+                    }
+                    w.append(";\n");
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                w.append("\n");
+                w.append(CODE_INDENT).append("/**\n");
+                w.append(CODE_INDENT).append(" * Returns the ordinal of the next set bit at or after the supplied ordinal, or -1 if none.\n");
+                w.append(CODE_INDENT).append(" */\n");
+                w.append(CODE_INDENT).append("public static int nextSet(long[] bits, int fromOrdinal)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("int word = fromOrdinal >>> 6;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("if (word >= WORD_COUNT)\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return -1;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("long value = bits[word] & (-1L << fromOrdinal);\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("while (value == 0L)\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("if (++word == WORD_COUNT)\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return -1;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("value = bits[word];\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return (word << 6) + Long.numberOfTrailingZeros(value);\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("}\n");
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to return which of the mask categories the attribute is in.
+     * @param attr The attribute
+     * @return Flags, in the order of MASK_CATEGORIES
+     */
+    private boolean[] getCategories(MetamodelAttribute attr)
+    {
+        boolean association = false;
+        for (String annotName : JPACriteriaProcessor.annotationsWithTargetEntity)
+        {
+            if (AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, annotName))
+            {
+                association = true;
+                break;
+            }
+        }
+
+        boolean embedded = AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "Embedded") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "EmbeddedId");
+        if (!embedded && attr.category == TypeCategory.ATTRIBUTE)
+        {
+            Element typeEl = processingEnv.getTypeUtils().asElement(AnnotationProcessorUtils.getDeclaredType(attr.member));
+            embedded = typeEl != null && AnnotationProcessorUtils.hasPersistenceAnnotation(typeEl, "Embeddable");
+        }
+
+        return new boolean[] {
+            attr.category == TypeCategory.ATTRIBUTE,
+            attr.category == TypeCategory.COLLECTION || attr.category == TypeCategory.LIST || attr.category == TypeCategory.SET,
+            attr.category == TypeCategory.MAP,
+            association,
+            embedded};
+    }
+}
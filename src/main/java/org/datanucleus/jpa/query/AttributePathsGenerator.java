@@ -0,0 +1,217 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Generator for the nested attribute paths of an entity.
+ * For an entity X in package p, a class X_Paths is created in package p with, for each path of 2 or more
+ * singular attributes navigating through embedded attributes (and optionally to-one associations), up to the
+ * maximum depth,
+ * <ul>
+ * <li>a String constant of the dotted path, e.g ADDRESS_CITY = "address.city", for use in JPQL</li>
+ * <li>an unmodifiable List constant of the path segments, e.g ADDRESS_CITY_SEGMENTS</li>
+ * <li>a static method navigating the path from a Criteria path to the entity using the metamodel attributes,
+ * e.g address_city(root) returning root.get(X_.address).get(Address_.city)</li>
+ * </ul>
+ * so that the paths are computed once at compile time and any invalid path is a compilation error.
+ */
+public class AttributePathsGenerator
+{
+    public static final String CLASS_NAME_SUFFIX = "_Paths";
+
+    public static final int DEFAULT_MAX_DEPTH = 3;
+
+    private static final String CODE_INDENT = "    ";
+
+    private final JPACriteriaProcessor processor;
+
+    private final ProcessingEnvironment processingEnv;
+
+    private final int maxDepth;
+
+    private final boolean includeAssociations;
+
+    public AttributePathsGenerator(JPACriteriaProcessor processor, ProcessingEnvironment processingEnv, int maxDepth, boolean includeAssociations)
+    {
+        this.processor = processor;
+        this.processingEnv = processingEnv;
+        this.maxDepth = maxDepth;
+        this.includeAssociations = includeAssociations;
+    }
+
+    /**
+     * Method to generate the paths class for the supplied entity, if it has any nested paths.
+     * @param el The entity class element
+     */
+    public void generate(TypeElement el)
+    {
+        List<List<MetamodelAttribute>> paths = new ArrayList<List<MetamodelAttribute>>();
+        addPaths(el, new ArrayList<MetamodelAttribute>(), paths);
+        if (paths.isEmpty())
+        {
+            return;
+        }
+
+        String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+        String pkgName = className.substring(0, className.lastIndexOf('.'));
+        String classSimpleName = className.substring(className.lastIndexOf('.') + 1);
+        String pathsClassSimpleName = classSimpleName + CLASS_NAME_SUFFIX;
+        String criteriaPkg = processor.getMetamodelNamespace(el) + ".persistence.criteria.";
+        System.out.println("DataNucleus : JPA Attribute Paths - " + className + " -> " + className + CLASS_NAME_SUFFIX);
+
+        try
+        {
+            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(className + CLASS_NAME_SUFFIX, el);
+            Writer w = javaFile.openWriter();
+            try
+            {
+                w.append("package " + pkgName + ";\n");
+                w.append("\n");
+                w.append("import javax.annotation.processing.Generated;\n");
+                w.append("\n");
+                w.append("/**\n");
+                w.append(" * Nested attribute paths of " + classSimpleName + ".\n");
+                w.append(" */\n");
+                w.append("@Generated(value=\"" + processor.getClass().getName() + "\")\n");
+                w.append("public final class " + pathsClassSimpleName + "\n");
+                w.append("{\n");
+
+                Set<String> constantNames = new HashSet<String>();
+                for (List<MetamodelAttribute> path : paths)
+                {
+                    StringBuilder pathStr = new StringBuilder();
+                    StringBuilder segmentsStr = new StringBuilder();
+                    StringBuilder constantName = new StringBuilder();
+                    StringBuilder methodName = new StringBuilder();
+                    StringBuilder navigation = new StringBuilder("path");
+                    for (MetamodelAttribute attr : path)
+                    {
+                        if (pathStr.length() > 0)
+                        {
+                            pathStr.append('.');
+                            segmentsStr.append(", ");
+                            constantName.append('_');
+                            methodName.append('_');
+                        }
+                        pathStr.append(attr.name);
+                        segmentsStr.append('"').append(attr.name).append('"');
+                        constantName.append(AnnotationProcessorUtils.getConstantName(attr.name));
+                        methodName.append(attr.name);
+                        TypeElement declaringEl = (TypeElement)attr.member.getEnclosingElement();
+                        navigation.append(".get(").append(processor.getMetamodelClassName(declaringEl)).append('.').append(attr.name).append(')');
+                    }
+                    if (!constantNames.add(constantName.toString()))
+                    {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                            "Path \"" + pathStr + "\" of " + el + " has the same constant name " + constantName + " as another path so is omitted", el);
+                        continue;
+                    }
+                    String typeName = path.get(path.size() - 1).typeArgNames.get(0);
+
+                    w.append(CODE_INDENT).append("/** Path \"" + pathStr + "\". */\n");
+                    w.append(CODE_INDENT).append("public static final String " + constantName + " = \"" + pathStr + "\";\n");
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("/** Segments of the path \"" + pathStr + "\". */\n");
+                    w.append(CODE_INDENT).append("public static final java.util.List<String> " + constantName + "_SEGMENTS =\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("java.util.Collections.unmodifiableList(java.util.Arrays.asList(" + segmentsStr + "));\n");
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("/**\n");
+                    w.append(CODE_INDENT).append(" * Accessor for the path \"" + pathStr + "\" from the supplied path.\n");
+                    w.append(CODE_INDENT).append(" * @param path Path to the " + classSimpleName + " (e.g the query root)\n");
+                    w.append(CODE_INDENT).append(" * @return The path\n");
+                    w.append(CODE_INDENT).append(" */\n");
+                    w.append(CODE_INDENT).append("public static " + criteriaPkg + "Path<" + typeName + "> " + methodName + "(" +
+                        criteriaPkg + "Path<? extends " + el.getQualifiedName() + "> path)\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return " + navigation + ";\n");
+                    w.append(CODE_INDENT).append("}\n");
+                    w.append("\n");
+                }
+
+                w.append(CODE_INDENT).append("private " + pathsClassSimpleName + "()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("}\n");
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to add the paths through the attributes of the supplied type, following on from the supplied path.
+     * Only singular attributes are navigated, into embeddables, and into related entities when including associations.
+     * @param typeEl The type (entity or embeddable) at the end of the path
+     * @param path The path so far
+     * @param paths The paths found, with parent paths before their child paths
+     */
+    protected void addPaths(TypeElement typeEl, List<MetamodelAttribute> path, List<List<MetamodelAttribute>> paths)
+    {
+        for (MetamodelAttribute attr : processor.getAllMetamodelAttributes(typeEl))
+        {
+            if (attr.category != TypeCategory.ATTRIBUTE)
+            {
+                continue;
+            }
+
+            List<MetamodelAttribute> attrPath = new ArrayList<MetamodelAttribute>(path);
+            attrPath.add(attr);
+            if (attrPath.size() > 1)
+            {
+                paths.add(attrPath);
+            }
+            if (attrPath.size() < maxDepth)
+            {
+                TypeElement attrTypeEl = processingEnv.getElementUtils().getTypeElement(attr.typeArgNames.get(0));
+                if (attrTypeEl == null)
+                {
+                    continue;
+                }
+                if (AnnotationProcessorUtils.hasPersistenceAnnotation(attrTypeEl, "Embeddable") ||
+                    (includeAssociations && AnnotationProcessorUtils.hasPersistenceAnnotation(attrTypeEl, "Entity") &&
+                     (AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "ManyToOne") ||
+                      AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "OneToOne"))))
+                {
+                    addPaths(attrTypeEl, attrPath, paths);
+                }
+            }
+        }
+    }
+}
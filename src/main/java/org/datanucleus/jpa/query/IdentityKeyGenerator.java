@@ -0,0 +1,577 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generator for identity key classes for entities that have a composite identity (IdClass or EmbeddedId).
+ * For an entity X in package p, a class X_Key is created in package p which is
+ * <ul>
+ * <li>final and immutable, holding one final field per identity member, with the hash code computed at construction
+ * (held in a field named <i>$hash</i> so as not to clash with any identity member). Array members are copied on
+ * construction and on access so that the key cannot be changed after its hash code is computed</li>
+ * <li>compared field-by-field, using primitive comparisons where the identity member is primitive</li>
+ * <li>creatable from the identity values (<i>of</i>), and from the entity / IdClass / EmbeddedId object (<i>from</i>)
+ * where the identity members are accessible from package p.</li>
+ * </ul>
+ * For an IdClass the identity members of the entity are checked against the members of the IdClass, and any
+ * mismatch in name or type is reported as a compilation error.
+ */
+public class IdentityKeyGenerator
+{
+    public static final String CLASS_NAME_SUFFIX = "_Key";
+
+    private static final String CODE_INDENT = "    ";
+
+    private final JPACriteriaProcessor processor;
+
+    private final ProcessingEnvironment processingEnv;
+
+    /**
+     * Representation of one component of the identity.
+     */
+    static class KeyPart
+    {
+        String name;
+        TypeMirror type;
+        String typeName;
+        Element entityMember;
+        Element idMember;
+
+        KeyPart(String name, TypeMirror type, String typeName)
+        {
+            this.name = name;
+            this.type = type;
+            this.typeName = typeName;
+        }
+    }
+
+    public IdentityKeyGenerator(JPACriteriaProcessor processor, ProcessingEnvironment processingEnv)
+    {
+        this.processor = processor;
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Method to generate the identity key class for the supplied entity, if it has a composite identity.
+     * @param el The entity class element
+     */
+    public void generate(TypeElement el)
+    {
+        // Find the identity members of this entity, including those of persistent superclasses
+        List<Element> idMembers = new ArrayList<Element>();
+        Element embeddedIdMember = null;
+        TypeMirror idClassType = null;
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        TypeElement typeEl = el;
+        while (typeEl != null)
+        {
+            hierarchy.add(0, typeEl);
+            typeEl = processor.getPersistentSupertype(typeEl);
+        }
+        for (TypeElement hierEl : hierarchy)
+        {
+            Object idClassValue = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(hierEl, "IdClass", "value");
+            if (idClassValue != null)
+            {
+                idClassType = (TypeMirror)idClassValue;
+            }
+            for (Element member : processor.getPersistentMembers(hierEl))
+            {
+                if (AnnotationProcessorUtils.hasPersistenceAnnotation(member, "EmbeddedId"))
+                {
+                    embeddedIdMember = member;
+                }
+                else if (AnnotationProcessorUtils.hasPersistenceAnnotation(member, "Id"))
+                {
+                    idMembers.add(member);
+                }
+            }
+        }
+
+        List<KeyPart> parts = null;
+        if (embeddedIdMember != null)
+        {
+            if (!idMembers.isEmpty() || idClassType != null)
+            {
+                error("Entity " + el + " has an EmbeddedId as well as Id members / IdClass", el);
+                return;
+            }
+            parts = getPartsForEmbeddedId(embeddedIdMember);
+        }
+        else if (idClassType != null)
+        {
+            parts = getPartsForIdClass(el, idMembers, idClassType);
+        }
+        if (parts == null || parts.isEmpty())
+        {
+            // Not a composite identity, or failed validation
+            return;
+        }
+
+        writeKeyClass(el, parts, embeddedIdMember, idClassType);
+    }
+
+    /**
+     * Method to return the key parts for an EmbeddedId, being the persistent members of the embeddable.
+     * @param embeddedIdMember The EmbeddedId member of the entity
+     * @return The key parts
+     */
+    protected List<KeyPart> getPartsForEmbeddedId(Element embeddedIdMember)
+    {
+        TypeMirror idType = AnnotationProcessorUtils.getDeclaredType(embeddedIdMember);
+        TypeElement idEl = (TypeElement) processingEnv.getTypeUtils().asElement(idType);
+        if (idEl == null)
+        {
+            error("EmbeddedId " + embeddedIdMember + " does not have a class type", embeddedIdMember);
+            return null;
+        }
+
+        List<KeyPart> parts = new ArrayList<KeyPart>();
+        for (Element member : processor.getPersistentMembers(idEl))
+        {
+            KeyPart part = createKeyPart(member);
+            part.idMember = member;
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    /**
+     * Method to return the key parts for an IdClass, being the Id members of the entity.
+     * Checks that each Id member has a matching member in the IdClass, and vice versa, reporting any mismatch.
+     * @param el The entity class element
+     * @param idMembers The Id members of the entity
+     * @param idClassType Type of the IdClass
+     * @return The key parts, or null if the IdClass doesn't match the Id members
+     */
+    protected List<KeyPart> getPartsForIdClass(TypeElement el, List<Element> idMembers, TypeMirror idClassType)
+    {
+        Types typeUtils = processingEnv.getTypeUtils();
+        TypeElement idClassEl = (TypeElement) typeUtils.asElement(idClassType);
+        List<Element> idClassMembers = processor.getPersistentMembers(idClassEl);
+        if (idMembers.isEmpty())
+        {
+            error("Entity " + el + " has IdClass " + idClassType + " but no Id members", el);
+            return null;
+        }
+
+        boolean valid = true;
+        List<KeyPart> parts = new ArrayList<KeyPart>();
+        for (Element member : idMembers)
+        {
+            KeyPart part = createKeyPart(member);
+            part.entityMember = member;
+            for (Element idClassMember : idClassMembers)
+            {
+                if (part.name.equals(AnnotationProcessorUtils.getMemberName(idClassMember)))
+                {
+                    part.idMember = idClassMember;
+                    break;
+                }
+            }
+
+            if (part.idMember == null)
+            {
+                error("IdClass " + idClassType + " has no member \"" + part.name + "\" for Id member of entity " + el, member);
+                valid = false;
+            }
+            else if (!AnnotationProcessorUtils.hasPersistenceAnnotation(member, "ManyToOne") && !AnnotationProcessorUtils.hasPersistenceAnnotation(member, "OneToOne"))
+            {
+                // Derived identity (relation as Id) uses the identity type of the related entity, so only check basic Id members
+                TypeMirror idMemberType = AnnotationProcessorUtils.getDeclaredType(part.idMember);
+                if (!typeUtils.isSameType(typeUtils.erasure(part.type), typeUtils.erasure(idMemberType)))
+                {
+                    error("IdClass " + idClassType + " member \"" + part.name + "\" has type " + idMemberType +
+                        " but the Id member of entity " + el + " has type " + part.type, member);
+                    valid = false;
+                }
+            }
+            else
+            {
+                // Use the IdClass type for the key since that is what identifies the related object
+                part.type = AnnotationProcessorUtils.getDeclaredType(part.idMember);
+                part.typeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, part.type, false);
+                part.entityMember = null;
+            }
+            parts.add(part);
+        }
+
+        for (Element idClassMember : idClassMembers)
+        {
+            String idClassMemberName = AnnotationProcessorUtils.getMemberName(idClassMember);
+            boolean found = false;
+            for (KeyPart part : parts)
+            {
+                if (part.name.equals(idClassMemberName))
+                {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found)
+            {
+                error("IdClass " + idClassType + " member \"" + idClassMemberName + "\" has no corresponding Id member in entity " + el, el);
+                valid = false;
+            }
+        }
+
+        return valid ? parts : null;
+    }
+
+    protected KeyPart createKeyPart(Element member)
+    {
+        TypeMirror type = AnnotationProcessorUtils.getDeclaredType(member);
+        return new KeyPart(AnnotationProcessorUtils.getMemberName(member), type,
+            AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, type, false));
+    }
+
+    /**
+     * Method to write the source of the identity key class.
+     * @param el The entity class element
+     * @param parts The key parts
+     * @param embeddedIdMember EmbeddedId member (if using EmbeddedId)
+     * @param idClassType IdClass type (if using IdClass)
+     */
+    protected void writeKeyClass(TypeElement el, List<KeyPart> parts, Element embeddedIdMember, TypeMirror idClassType)
+    {
+        String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+        String pkgName = className.substring(0, className.lastIndexOf('.'));
+        String classSimpleName = className.substring(className.lastIndexOf('.') + 1);
+        String keyClassSimpleName = classSimpleName + CLASS_NAME_SUFFIX;
+        System.out.println("DataNucleus : JPA Identity Key - " + className + " -> " + className + CLASS_NAME_SUFFIX);
+
+        // Work out the access paths for the "from" factories
+        TypeMirror idType = null;
+        String entityIdPath = null;
+        if (embeddedIdMember != null)
+        {
+            idType = AnnotationProcessorUtils.getDeclaredType(embeddedIdMember);
+            entityIdPath = getAccessExpression("entity", embeddedIdMember, pkgName);
+        }
+        else
+        {
+            idType = idClassType;
+        }
+        String idTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, idType, false);
+        boolean idAccessible = isAccessibleClass(processingEnv.getTypeUtils().asElement(idType), pkgName);
+        List<String> idExprs = new ArrayList<String>();
+        List<String> entityExprs = new ArrayList<String>();
+        for (KeyPart part : parts)
+        {
+            String idExpr = idAccessible ? getAccessExpression("id", part.idMember, pkgName) : null;
+            idExprs.add(idExpr);
+            if (embeddedIdMember != null)
+            {
+                entityExprs.add(entityIdPath != null && idExpr != null ? "from(" + entityIdPath + ")" : null);
+            }
+            else
+            {
+                entityExprs.add(part.entityMember != null ? getAccessExpression("entity", part.entityMember, pkgName) : null);
+            }
+        }
+
+        try
+        {
+            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(className + CLASS_NAME_SUFFIX, el);
+            Writer w = javaFile.openWriter();
+            try
+            {
+                w.append("package " + pkgName + ";\n");
+                w.append("\n");
+                w.append("import javax.annotation.processing.Generated;\n");
+                w.append("\n");
+                w.append("/**\n");
+                w.append(" * Identity key for " + classSimpleName + ".\n");
+                w.append(" */\n");
+                w.append("@Generated(value=\"" + processor.getClass().getName() + "\")\n");
+                w.append("public final class " + keyClassSimpleName + " implements java.io.Serializable\n");
+                w.append("{\n");
+                w.append(CODE_INDENT).append("private static final long serialVersionUID = 1L;\n");
+                w.append("\n");
+                for (KeyPart part : parts)
+                {
+                    w.append(CODE_INDENT).append("private final " + part.typeName + " " + part.name + ";\n");
+                }
+                w.append("\n");
+                w.append(CODE_INDENT).append("private final transient int $hash;\n");
+                w.append("\n");
+
+                // Constructor, computing the hash code
+                w.append(CODE_INDENT).append("private " + keyClassSimpleName + "(" + getParameterList(parts) + ")\n");
+                w.append(CODE_INDENT).append("{\n");
+                for (KeyPart part : parts)
+                {
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("this." + part.name + " = " + getCopyExpression(part, part.name) + ";\n");
+                }
+                w.append(CODE_INDENT).append(CODE_INDENT).append("int $h = 1;\n");
+                for (KeyPart part : parts)
+                {
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("$h = 31 * $h + " + AnnotationProcessorUtils.getHashCodeExpression(part.type, "this." + part.name) + ";\n");
+                }
+                w.append(CODE_INDENT).append(CODE_INDENT).append("this.$hash = $h;\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+
+                // Factories
+                w.append(CODE_INDENT).append("public static " + keyClassSimpleName + " of(" + getParameterList(parts) + ")\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return new " + keyClassSimpleName + "(" + getArgumentList(parts, null) + ");\n");
+                w.append(CODE_INDENT).append("}\n");
+                if (!idExprs.contains(null))
+                {
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("public static " + keyClassSimpleName + " from(" + idTypeName + " id)\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return new " + keyClassSimpleName + "(" + getArgumentList(parts, idExprs) + ");\n");
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                if (!entityExprs.contains(null))
+                {
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("public static " + keyClassSimpleName + " from(" + classSimpleName + " entity)\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    if (embeddedIdMember != null)
+                    {
+                        w.append(CODE_INDENT).append(CODE_INDENT).append("return " + entityExprs.get(0) + ";\n");
+                    }
+                    else
+                    {
+                        w.append(CODE_INDENT).append(CODE_INDENT).append("return new " + keyClassSimpleName + "(" + getArgumentList(parts, entityExprs) + ");\n");
+                    }
+                    w.append(CODE_INDENT).append("}\n");
+                }
+
+                // Accessors
+                for (KeyPart part : parts)
+                {
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("public " + part.typeName + " " + part.name + "()\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return " + getCopyExpression(part, "this." + part.name) + ";\n");
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                w.append("\n");
+
+                // hashCode, equals (primitive members first), toString
+                w.append(CODE_INDENT).append("@Override\n");
+                w.append(CODE_INDENT).append("public int hashCode()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return this.$hash;\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("@Override\n");
+                w.append(CODE_INDENT).append("public boolean equals(Object obj)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("if (obj == this)\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return true;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("if (!(obj instanceof " + keyClassSimpleName + "))\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return false;\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                String otherExpr = "((" + keyClassSimpleName + ")obj)";
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return this.$hash == " + otherExpr + ".$hash");
+                for (KeyPart part : parts)
+                {
+                    if (AnnotationProcessorUtils.typeIsPrimitive(part.type))
+                    {
+                        w.append(" &&\n").append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append(
+                            AnnotationProcessorUtils.getEqualsExpression(part.type, "this." + part.name, otherExpr + "." + part.name));
+                    }
+                }
+                for (KeyPart part : parts)
+                {
+                    if (!AnnotationProcessorUtils.typeIsPrimitive(part.type))
+                    {
+                        w.append(" &&\n").append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append(
+                            AnnotationProcessorUtils.getEqualsExpression(part.type, "this." + part.name, otherExpr + "." + part.name));
+                    }
+                }
+                w.append(";\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+                w.append(CODE_INDENT).append("@Override\n");
+                w.append(CODE_INDENT).append("public String toString()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return \"" + keyClassSimpleName + "[\"");
+                boolean first = true;
+                for (KeyPart part : parts)
+                {
+                    w.append(" + \"" + (first ? "" : ", ") + part.name + "=\" + " +
+                        (part.type.getKind() == TypeKind.ARRAY ? "java.util.Arrays.toString(this." + part.name + ")" : "this." + part.name));
+                    first = false;
+                }
+                w.append(" + \"]\";\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("\n");
+
+                // Hash code is transient so recompute on deserialisation
+                w.append(CODE_INDENT).append("private Object readResolve()\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return new " + keyClassSimpleName + "(" + getArgumentList(parts, null) + ");\n");
+                w.append(CODE_INDENT).append("}\n");
+                w.append("}\n");
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private String getParameterList(List<KeyPart> parts)
+    {
+        StringBuilder str = new StringBuilder();
+        for (KeyPart part : parts)
+        {
+            if (str.length() > 0)
+            {
+                str.append(", ");
+            }
+            str.append(part.typeName).append(" ").append(part.name);
+        }
+        return str.toString();
+    }
+
+    private String getArgumentList(List<KeyPart> parts, List<String> exprs)
+    {
+        StringBuilder str = new StringBuilder();
+        for (int i=0;i<parts.size();i++)
+        {
+            if (i > 0)
+            {
+                str.append(", ");
+            }
+            str.append(exprs != null ? exprs.get(i) : parts.get(i).name);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Method to return the expression for the value of the key part to store or return, being a copy for an array
+     * (so the key stays immutable), otherwise the value itself.
+     * @param part The key part
+     * @param expr Expression for the value
+     * @return The expression
+     */
+    private String getCopyExpression(KeyPart part, String expr)
+    {
+        if (part.type.getKind() == TypeKind.ARRAY)
+        {
+            return "(" + expr + " == null ? null : " + expr + ".clone())";
+        }
+        return expr;
+    }
+
+    /**
+     * Method to return the expression to access the supplied member of an object from code in the specified package.
+     * Uses the field directly when visible, otherwise the java bean getter.
+     * @param objName Name of the object variable in the generated code
+     * @param member The member (field or getter)
+     * @param pkgName Package of the generated code
+     * @return The expression, or null if the member is not accessible
+     */
+    protected String getAccessExpression(String objName, Element member, String pkgName)
+    {
+        if (member.getKind() == ElementKind.METHOD)
+        {
+            return isAccessible(member, pkgName) ? objName + "." + member.getSimpleName() + "()" : null;
+        }
+        if (isAccessible(member, pkgName))
+        {
+            return objName + "." + member.getSimpleName();
+        }
+
+        // Field not visible so look for a getter
+        String memberName = member.getSimpleName().toString();
+        String suffix = Character.toUpperCase(memberName.charAt(0)) + memberName.substring(1);
+        for (Element sibling : member.getEnclosingElement().getEnclosedElements())
+        {
+            if (sibling.getKind() == ElementKind.METHOD && AnnotationProcessorUtils.isJavaBeanGetter((ExecutableElement)sibling))
+            {
+                String methodName = sibling.getSimpleName().toString();
+                if ((methodName.equals("get" + suffix) || methodName.equals("is" + suffix)) && isAccessible(sibling, pkgName))
+                {
+                    return objName + "." + methodName + "()";
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccessible(Element member, String pkgName)
+    {
+        if (member.getModifiers().contains(Modifier.PRIVATE))
+        {
+            return false;
+        }
+        if (member.getModifiers().contains(Modifier.PUBLIC))
+        {
+            return isAccessibleClass(member.getEnclosingElement(), pkgName);
+        }
+        return pkgName.equals(processingEnv.getElementUtils().getPackageOf(member).getQualifiedName().toString()) &&
+            isAccessibleClass(member.getEnclosingElement(), pkgName);
+    }
+
+    private boolean isAccessibleClass(Element classEl, String pkgName)
+    {
+        if (classEl == null || classEl.getModifiers().contains(Modifier.PRIVATE))
+        {
+            return false;
+        }
+        if (!classEl.getModifiers().contains(Modifier.PUBLIC) &&
+            !pkgName.equals(processingEnv.getElementUtils().getPackageOf(classEl).getQualifiedName().toString()))
+        {
+            return false;
+        }
+        Element enclosing = classEl.getEnclosingElement();
+        if (enclosing != null && (enclosing.getKind().isClass() || enclosing.getKind().isInterface()))
+        {
+            return isAccessibleClass(enclosing, pkgName);
+        }
+        return true;
+    }
+
+    private void error(String msg, Element el)
+    {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, el);
+    }
+}
@@ -19,6 +19,7 @@ package org.datanucleus.jpa.query;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -28,6 +29,7 @@ import java.util.Set;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -43,15 +45,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
-import javax.persistence.AccessType;
-import javax.persistence.Embeddable;
-import javax.persistence.Entity;
-import javax.persistence.ManyToMany;
-import javax.persistence.ManyToOne;
-import javax.persistence.MappedSuperclass;
-import javax.persistence.OneToMany;
-import javax.persistence.OneToOne;
-import javax.persistence.Transient;
+import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
 import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
@@ -86,17 +80,94 @@ import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
  * </li>
  * </ul>
  */
-@SupportedAnnotationTypes({"javax.persistence.Entity", "javax.persistence.Embeddable", "javax.persistence.MappedSuperclass"})
+@SupportedAnnotationTypes({"javax.persistence.Entity", "javax.persistence.Embeddable", "javax.persistence.MappedSuperclass",
+    "jakarta.persistence.Entity", "jakarta.persistence.Embeddable", "jakarta.persistence.MappedSuperclass",
+    "org.datanucleus.jpa.query.Projection"})
+@SupportedOptions({JPACriteriaProcessor.OPTION_IDENTITY_KEYS, JPACriteriaProcessor.OPTION_METAMODEL_OUTPUT, JPACriteriaProcessor.OPTION_METAMODEL_NAMESPACE,
+    JPACriteriaProcessor.OPTION_NATIVE_IMAGE, JPACriteriaProcessor.OPTION_NATIVE_IMAGE_PATH, JPACriteriaProcessor.OPTION_ATTRIBUTE_ORDINALS,
+    JPACriteriaProcessor.OPTION_ATTRIBUTE_PATHS, JPACriteriaProcessor.OPTION_ATTRIBUTE_PATH_DEPTH, JPACriteriaProcessor.OPTION_ATTRIBUTE_PATH_ASSOCIATIONS,
+    JPACriteriaProcessor.OPTION_LINT, JPACriteriaProcessor.OPTION_LINT_SUPPRESS})
 public class JPACriteriaProcessor extends AbstractProcessor
 {
+    /** Processor option to generate an identity key class (X_Key) for each entity with a composite identity. */
+    public static final String OPTION_IDENTITY_KEYS = "datanucleus.jpa.query.identityKeys";
+
+    /** Processor option for the form of metamodel output, either "source" (default) or "class" (class files written directly). */
+    public static final String OPTION_METAMODEL_OUTPUT = "datanucleus.jpa.query.metamodelOutput";
+
+    /** Processor option for the persistence API namespace of the metamodel, either "auto" (default), "javax" or "jakarta". */
+    public static final String OPTION_METAMODEL_NAMESPACE = "datanucleus.jpa.query.metamodelNamespace";
+
+    /** Processor option to generate GraalVM native-image reflection and resource configuration. */
+    public static final String OPTION_NATIVE_IMAGE = "datanucleus.jpa.query.nativeImage";
+
+    /** Processor option for the path under META-INF/native-image for the native-image configuration (e.g "{groupId}/{artifactId}"). */
+    public static final String OPTION_NATIVE_IMAGE_PATH = "datanucleus.jpa.query.nativeImagePath";
+
+    /** Processor option to generate attribute ordinals and dirty-tracking helpers (X_Ordinals) for each entity. */
+    public static final String OPTION_ATTRIBUTE_ORDINALS = "datanucleus.jpa.query.attributeOrdinals";
+
+    /** Processor option to generate nested attribute path constants and accessors (X_Paths) for each entity. */
+    public static final String OPTION_ATTRIBUTE_PATHS = "datanucleus.jpa.query.attributePaths";
+
+    /** Processor option for the maximum number of attributes in a generated nested attribute path (default 3). */
+    public static final String OPTION_ATTRIBUTE_PATH_DEPTH = "datanucleus.jpa.query.attributePathDepth";
+
+    /** Processor option for whether nested attribute paths also navigate to-one associations, as well as embedded attributes. */
+    public static final String OPTION_ATTRIBUTE_PATH_ASSOCIATIONS = "datanucleus.jpa.query.attributePathAssociations";
+
+    /** Processor option to analyse mappings for performance problems, either "true" (report warnings) or "strict" (report errors). */
+    public static final String OPTION_LINT = "datanucleus.jpa.query.lint";
+
+    /** Processor option for the comma-separated performance analysis rules to suppress. */
+    public static final String OPTION_LINT_SUPPRESS = "datanucleus.jpa.query.lintSuppress";
+
     private static final String CLASS_NAME_SUFFIX = "_";
 
     private static final String CODE_INDENT = "    ";
 
     Types typesHandler;
 
-    protected static Class[] annotationsWithTargetEntity =
-        new Class[] {OneToOne.class, OneToMany.class, ManyToOne.class, ManyToMany.class};
+    IdentityKeyGenerator identityKeyGenerator;
+
+    MetamodelClassWriter metamodelClassWriter;
+
+    NativeImageConfigGenerator nativeImageConfigGenerator;
+
+    AttributeOrdinalsGenerator attributeOrdinalsGenerator;
+
+    AttributePathsGenerator attributePathsGenerator;
+
+    PerformanceLint performanceLint;
+
+    ProjectionGenerator projectionGenerator;
+
+    /** Metamodel attributes of the classes analysed in the current round, so each class is only analysed once. */
+    Map<TypeElement, List<MetamodelAttribute>> metamodelAttributesCache = new HashMap<TypeElement, List<MetamodelAttribute>>();
+
+    /**
+     * Representation of an attribute of a metamodel class, being the attribute name, its category and the
+     * names of the type arguments following the owner type (the element type, or key and value types for a Map).
+     */
+    static class MetamodelAttribute
+    {
+        String name;
+        TypeCategory category;
+        List<String> typeArgNames;
+        Element member;
+
+        MetamodelAttribute(String name, TypeCategory category, List<String> typeArgNames, Element member)
+        {
+            this.name = name;
+            this.category = category;
+            this.typeArgNames = typeArgNames;
+            this.member = member;
+        }
+    }
+
+    /** Simple names of the JPA annotations that have a "targetEntity" attribute. */
+    protected static String[] annotationsWithTargetEntity =
+        new String[] {"OneToOne", "OneToMany", "ManyToOne", "ManyToMany"};
 
     /* (non-Javadoc)
      * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
@@ -106,10 +177,65 @@ public class JPACriteriaProcessor extends AbstractProcessor
     {
         if (roundEnv.processingOver())
         {
+            if (nativeImageConfigGenerator != null)
+            {
+                nativeImageConfigGenerator.write();
+            }
             return false;
         }
 
+        if (typesHandler == null)
+        {
+            String namespaceOption = getOption(OPTION_METAMODEL_NAMESPACE);
+            if (namespaceOption != null && !"auto".equalsIgnoreCase(namespaceOption) &&
+                !AnnotationProcessorUtils.NAMESPACE_JAVAX.equalsIgnoreCase(namespaceOption) &&
+                !AnnotationProcessorUtils.NAMESPACE_JAKARTA.equalsIgnoreCase(namespaceOption))
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Invalid value \"" + namespaceOption + "\" for " + OPTION_METAMODEL_NAMESPACE + " so using auto");
+            }
+        }
         typesHandler = processingEnv.getTypeUtils();
+        metamodelAttributesCache.clear();
+        if (identityKeyGenerator == null && getBooleanOption(OPTION_IDENTITY_KEYS))
+        {
+            identityKeyGenerator = new IdentityKeyGenerator(this, processingEnv);
+        }
+        if (metamodelClassWriter == null && "class".equalsIgnoreCase(getOption(OPTION_METAMODEL_OUTPUT)))
+        {
+            metamodelClassWriter = new MetamodelClassWriter(processingEnv);
+        }
+        if (nativeImageConfigGenerator == null && getBooleanOption(OPTION_NATIVE_IMAGE))
+        {
+            nativeImageConfigGenerator = new NativeImageConfigGenerator(processingEnv, getOption(OPTION_NATIVE_IMAGE_PATH));
+        }
+        if (attributeOrdinalsGenerator == null && getBooleanOption(OPTION_ATTRIBUTE_ORDINALS))
+        {
+            attributeOrdinalsGenerator = new AttributeOrdinalsGenerator(this, processingEnv);
+        }
+        if (attributePathsGenerator == null && getBooleanOption(OPTION_ATTRIBUTE_PATHS))
+        {
+            int maxDepth = AttributePathsGenerator.DEFAULT_MAX_DEPTH;
+            String depthValue = getOption(OPTION_ATTRIBUTE_PATH_DEPTH);
+            if (depthValue != null)
+            {
+                try
+                {
+                    maxDepth = Integer.parseInt(depthValue);
+                }
+                catch (NumberFormatException nfe)
+                {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Invalid value \"" + depthValue + "\" for " + OPTION_ATTRIBUTE_PATH_DEPTH + " so using " + maxDepth);
+                }
+            }
+            attributePathsGenerator = new AttributePathsGenerator(this, processingEnv, maxDepth, getBooleanOption(OPTION_ATTRIBUTE_PATH_ASSOCIATIONS));
+        }
+        if (performanceLint == null && (getBooleanOption(OPTION_LINT) || "strict".equalsIgnoreCase(getOption(OPTION_LINT))))
+        {
+            performanceLint = new PerformanceLint(this, processingEnv, "strict".equalsIgnoreCase(getOption(OPTION_LINT)), getOption(OPTION_LINT_SUPPRESS));
+        }
+
         Set<? extends Element> elements = roundEnv.getRootElements();
         for (Element e : elements)
         {
@@ -118,6 +244,19 @@ public class JPACriteriaProcessor extends AbstractProcessor
                 processClass((TypeElement)e);
             }
         }
+
+        TypeElement projectionAnnotation = processingEnv.getElementUtils().getTypeElement(Projection.class.getName());
+        if (projectionAnnotation != null)
+        {
+            for (Element e : roundEnv.getElementsAnnotatedWith(projectionAnnotation))
+            {
+                if (projectionGenerator == null)
+                {
+                    projectionGenerator = new ProjectionGenerator(this, processingEnv);
+                }
+                projectionGenerator.generate((TypeElement)e);
+            }
+        }
         return false;
     }
 
@@ -137,227 +276,350 @@ public class JPACriteriaProcessor extends AbstractProcessor
         // TODO Support specification of the location for writing the class source files
         Elements elementUtils = processingEnv.getElementUtils();
         String className = elementUtils.getBinaryName(el).toString();
-        String pkgName = className.substring(0, className.lastIndexOf('.'));
-        String classSimpleName = className.substring(className.lastIndexOf('.') + 1);
         String classNameNew = className + CLASS_NAME_SUFFIX;
         System.out.println("DataNucleus : JPA Criteria - " + className + " -> " + classNameNew);
 
-        Map<String, TypeMirror> genericLookups = null;
-        List<? extends TypeParameterElement> elTypeParams = el.getTypeParameters();
-        for (TypeParameterElement elTypeParam : elTypeParams)
+        TypeElement superEl = getPersistentSupertype(el);
+        List<MetamodelAttribute> attributes = getMetamodelAttributes(el);
+
+        // Write the metamodel in the namespace of the managed class (or that requested)
+        writeMetamodel(el, superEl, getMetamodelNamespace(el), attributes);
+
+        if (nativeImageConfigGenerator != null)
         {
-            List<? extends TypeMirror> elTypeBounds = elTypeParam.getBounds();
-            if (elTypeBounds != null && !elTypeBounds.isEmpty())
+            nativeImageConfigGenerator.addPersistentClass(el, getPersistentMembers(el));
+            Object idClassValue = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(el, "IdClass", "value");
+            if (idClassValue != null)
             {
-                genericLookups = new HashMap<String, TypeMirror>();
-                genericLookups.put(elTypeParam.toString(), elTypeBounds.get(0));
+                TypeElement idClassEl = (TypeElement)typesHandler.asElement((TypeMirror)idClassValue);
+                nativeImageConfigGenerator.addPersistentClass(idClassEl, getPersistentMembers(idClassEl));
             }
         }
 
-        TypeElement superEl = getPersistentSupertype(el);
+        if (identityKeyGenerator != null && AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Entity"))
+        {
+            identityKeyGenerator.generate(el);
+        }
+        if (attributeOrdinalsGenerator != null && AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Entity"))
+        {
+            attributeOrdinalsGenerator.generate(el);
+        }
+        if (attributePathsGenerator != null && AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Entity"))
+        {
+            attributePathsGenerator.generate(el);
+        }
+        if (performanceLint != null)
+        {
+            performanceLint.check(el);
+        }
+    }
+
+    /**
+     * Accessor for the value of the specified processor option.
+     * @param name Name of the option
+     * @return The (trimmed) value, or null if not specified
+     */
+    protected String getOption(String name)
+    {
+        String value = processingEnv.getOptions().get(name);
+        return value != null ? value.trim() : null;
+    }
+
+    /**
+     * Accessor for whether the specified processor option is set to "true".
+     * @param name Name of the option
+     * @return Whether it is enabled
+     */
+    protected boolean getBooleanOption(String name)
+    {
+        return Boolean.parseBoolean(getOption(name));
+    }
+
+    /**
+     * Accessor for the persistence API namespace of the metamodel class (in the package of the managed class)
+     * for the supplied managed class, being that specified by the namespace option, else that of its annotations.
+     * @param el The managed class
+     * @return The namespace ("javax" or "jakarta")
+     */
+    protected String getMetamodelNamespace(TypeElement el)
+    {
+        String namespaceOption = getOption(OPTION_METAMODEL_NAMESPACE);
+        if (AnnotationProcessorUtils.NAMESPACE_JAVAX.equalsIgnoreCase(namespaceOption) ||
+            AnnotationProcessorUtils.NAMESPACE_JAKARTA.equalsIgnoreCase(namespaceOption))
+        {
+            return namespaceOption.toLowerCase();
+        }
+        return AnnotationProcessorUtils.getPersistenceNamespace(el);
+    }
+
+    /**
+     * Method to write the metamodel class for the supplied managed class in the specified namespace.
+     * @param el The managed class
+     * @param superEl The persistent superclass (if any)
+     * @param namespace The persistence API namespace ("javax" or "jakarta")
+     * @param attributes The metamodel attributes
+     */
+    protected void writeMetamodel(TypeElement el, TypeElement superEl, String namespace, List<MetamodelAttribute> attributes)
+    {
+        String className = getMetamodelClassName(el);
+        String superClassName = (superEl != null) ? getMetamodelClassName(superEl) : null;
+        if (metamodelClassWriter != null)
+        {
+            metamodelClassWriter.write(el, className, superClassName, namespace, attributes);
+        }
+        else
+        {
+            String managedClassName = processingEnv.getElementUtils().getBinaryName(el).toString();
+            managedClassName = managedClassName.substring(managedClassName.lastIndexOf('.') + 1);
+            writeMetamodelSource(className, managedClassName, superClassName, namespace, attributes);
+        }
+
+        if (nativeImageConfigGenerator != null)
+        {
+            nativeImageConfigGenerator.addMetamodelClass(className, attributes);
+        }
+    }
+
+    /**
+     * Accessor for the (binary) name of the metamodel class for the supplied managed class.
+     * @param el The managed class
+     * @return Name of the metamodel class
+     */
+    protected String getMetamodelClassName(TypeElement el)
+    {
+        return processingEnv.getElementUtils().getBinaryName(el).toString() + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Method to write the source of the metamodel class.
+     * @param className Name of the metamodel class
+     * @param managedClassName Name of the managed class, as referenced from the metamodel class
+     * @param superClassName Name of the metamodel class of the persistent superclass (if any)
+     * @param namespace The persistence API namespace ("javax" or "jakarta")
+     * @param attributes The metamodel attributes
+     */
+    protected void writeMetamodelSource(String className, String managedClassName, String superClassName, String namespace,
+            List<MetamodelAttribute> attributes)
+    {
+        String pkgName = className.substring(0, className.lastIndexOf('.'));
         try
         {
-            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(classNameNew);
+            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(className);
             Writer w = javaFile.openWriter();
             try
             {
                 w.append("package " + pkgName + ";\n");
                 w.append("\n");
                 w.append("import javax.annotation.processing.Generated;\n");
-                w.append("import javax.persistence.metamodel.*;\n");
+                w.append("import " + namespace + ".persistence.metamodel.*;\n");
                 w.append("\n");
                 w.append("@Generated(value=\"" + this.getClass().getName() + "\")\n");
-                w.append("@StaticMetamodel(" + classSimpleName + ".class)\n");
-                w.append("public class " + classSimpleName + CLASS_NAME_SUFFIX);
-                if (superEl != null)
+                w.append("@StaticMetamodel(" + managedClassName + ".class)\n");
+                w.append("public class " + className.substring(pkgName.length() + 1));
+                if (superClassName != null)
                 {
-                    String superClassName = elementUtils.getBinaryName(superEl).toString();
-                    w.append(" extends ").append(superClassName + CLASS_NAME_SUFFIX);
+                    w.append(" extends ").append(superClassName);
                 }
                 w.append("\n");
                 w.append("{\n");
 
-                // Find the members to use for persistence processing
-                AccessType clsAccessType = (AccessType) AnnotationProcessorUtils.getValueForAnnotationAttribute(el, AccessType.class, "value");
-                List<? extends Element> members = null;
-                if (clsAccessType == AccessType.FIELD)
+                for (MetamodelAttribute attr : attributes)
                 {
-                    // Only use fields
-                    members = AnnotationProcessorUtils.getFieldMembers(el);
+                    w.append(CODE_INDENT).append("public static volatile " + attr.category.getTypeName()).append("<" + managedClassName);
+                    for (String typeArgName : attr.typeArgNames)
+                    {
+                        w.append(", ").append(typeArgName);
+                    }
+                    w.append("> " + attr.name + ";\n");
                 }
-                else if (clsAccessType == AccessType.PROPERTY)
+
+                w.append("}\n");
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to extract the metamodel attributes for the persistent members declared by the supplied class.
+     * The attributes are cached for the round, so are shared by all generators using them.
+     * @param el The class element
+     * @return The metamodel attributes, in declaration order
+     */
+    protected List<MetamodelAttribute> getMetamodelAttributes(TypeElement el)
+    {
+        List<MetamodelAttribute> cachedAttributes = metamodelAttributesCache.get(el);
+        if (cachedAttributes != null)
+        {
+            return cachedAttributes;
+        }
+
+        Map<String, TypeMirror> genericLookups = null;
+        List<? extends TypeParameterElement> elTypeParams = el.getTypeParameters();
+        for (TypeParameterElement elTypeParam : elTypeParams)
+        {
+            List<? extends TypeMirror> elTypeBounds = elTypeParam.getBounds();
+            if (elTypeBounds != null && !elTypeBounds.isEmpty())
+            {
+                genericLookups = new HashMap<String, TypeMirror>();
+                genericLookups.put(elTypeParam.toString(), elTypeBounds.get(0));
+            }
+        }
+
+        List<MetamodelAttribute> attributes = new ArrayList<MetamodelAttribute>();
+        for (Element member : getPersistentMembers(el))
+        {
+            TypeMirror type = AnnotationProcessorUtils.getDeclaredType(member);
+            String typeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, type, true);
+            TypeCategory cat = AnnotationProcessorUtils.getTypeCategoryForTypeMirror(typeName);
+            String memberName = AnnotationProcessorUtils.getMemberName(member);
+
+            List<String> typeArgNames = new ArrayList<String>();
+            if (cat == TypeCategory.ATTRIBUTE)
+            {
+                if (type.getKind() == TypeKind.DECLARED && type instanceof DeclaredType && type instanceof TypeVariable)
                 {
-                    // Only use properties
-                    members = AnnotationProcessorUtils.getPropertyMembers(el);
+                    // This was needed to detect such as a field with a Bean Validation 2.0 @NotNull, which comes through as 
+                    // "(@javax.validation.constraints.NotNull :: theUserType)", so this converts that to "theUserType".
+                    // TODO Is this the best way to trap that case ? (i.e "TypeVariable")?! probably not, so find a better way
+                    // Note that this is also a WildcardType, ReferenceType, ArrayType
+                    type = ((DeclaredType)type).asElement().asType();
                 }
-                else
+
+                if (type instanceof PrimitiveType)
                 {
-                    // Default access type - whichever type (field or method) is annotated first
-                    members = getDefaultAccessMembers(el);
+                    if (type.toString().equals("long"))
+                    {
+                        typeArgNames.add("Long");
+                    }
+                    else if (type.toString().equals("int"))
+                    {
+                        typeArgNames.add("Integer");
+                    }
+                    else if (type.toString().equals("short"))
+                    {
+                        typeArgNames.add("Short");
+                    }
+                    else if (type.toString().equals("float"))
+                    {
+                        typeArgNames.add("Float");
+                    }
+                    else if (type.toString().equals("double"))
+                    {
+                        typeArgNames.add("Double");
+                    }
+                    else if (type.toString().equals("char"))
+                    {
+                        typeArgNames.add("Character");
+                    }
+                    else if (type.toString().equals("byte"))
+                    {
+                        typeArgNames.add("Byte");
+                    }
+                    else if (type.toString().equals("boolean"))
+                    {
+                        typeArgNames.add("Boolean");
+                    }
+                    else
+                    {
+                        typeArgNames.add(type.toString());
+                    }
                 }
-
-                if (members != null)
+                else
                 {
-                    Iterator<? extends Element> iter = members.iterator();
-                    while (iter.hasNext())
+                    String name = type.toString();
+
+                    TypeMirror target = null;
+                    for (int i=0;i<annotationsWithTargetEntity.length;i++)
                     {
-                        Element member = iter.next();
-                        boolean isTransient = false;
-                        List<? extends AnnotationMirror> annots = member.getAnnotationMirrors();
-                        if (annots != null)
+                        Object targetValue = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(member, annotationsWithTargetEntity[i], "targetEntity");
+                        if (targetValue != null)
                         {
-                            Iterator<? extends AnnotationMirror> annotIter = annots.iterator();
-                            while (annotIter.hasNext())
-                            {
-                                AnnotationMirror annot = annotIter.next();
-                                if (annot.getAnnotationType().toString().equals(Transient.class.getName()))
-                                {
-                                    // Ignore this
-                                    isTransient = true;
-                                    break;
-                                }
-                            }
+                            target = (TypeMirror)targetValue;
+                            break;
                         }
-
-                        // Don't create static meta-model for STATIC or transient members
-                        if (!member.getModifiers().contains(javax.lang.model.element.Modifier.STATIC) && !isTransient)
+                    }
+                    if (target != null)
+                    {
+                        name = target.toString();
+                    }
+                    else if (genericLookups != null && genericLookups.containsKey(name))
+                    {
+                        // This is a generic type, so replace with the bound type; equates to "T extends MyOtherType" and putting "MyOtherType" in
+                        name = genericLookups.get(name).toString();
+                    }
+                    else
+                    {
+                        if (name.charAt(0) == '@' && name.indexOf(" ") > 0)
                         {
-                            if (member.getKind() == ElementKind.FIELD ||
-                                (member.getKind() == ElementKind.METHOD && AnnotationProcessorUtils.isJavaBeanGetter((ExecutableElement) member)))
-                            {
-                                TypeMirror type = AnnotationProcessorUtils.getDeclaredType(member);
-                                String typeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, type, true);
-                                TypeCategory cat = AnnotationProcessorUtils.getTypeCategoryForTypeMirror(typeName);
-                                String memberName = AnnotationProcessorUtils.getMemberName(member);
-
-                                w.append(CODE_INDENT).append("public static volatile " + cat.getTypeName()).append("<" + classSimpleName + ", ");
-                                if (cat == TypeCategory.ATTRIBUTE)
-                                {
-                                    if (type.getKind() == TypeKind.DECLARED && type instanceof DeclaredType && type instanceof TypeVariable)
-                                    {
-                                        // This was needed to detect such as a field with a Bean Validation 2.0 @NotNull, which comes through as 
-                                        // "(@javax.validation.constraints.NotNull :: theUserType)", so this converts that to "theUserType".
-                                        // TODO Is this the best way to trap that case ? (i.e "TypeVariable")?! probably not, so find a better way
-                                        // Note that this is also a WildcardType, ReferenceType, ArrayType
-                                        type = ((DeclaredType)type).asElement().asType();
-                                    }
-
-                                    if (type instanceof PrimitiveType)
-                                    {
-                                        if (type.toString().equals("long"))
-                                        {
-                                            w.append("Long");
-                                        }
-                                        else if (type.toString().equals("int"))
-                                        {
-                                            w.append("Integer");
-                                        }
-                                        else if (type.toString().equals("short"))
-                                        {
-                                            w.append("Short");
-                                        }
-                                        else if (type.toString().equals("float"))
-                                        {
-                                            w.append("Float");
-                                        }
-                                        else if (type.toString().equals("double"))
-                                        {
-                                            w.append("Double");
-                                        }
-                                        else if (type.toString().equals("char"))
-                                        {
-                                            w.append("Character");
-                                        }
-                                        else if (type.toString().equals("byte"))
-                                        {
-                                            w.append("Byte");
-                                        }
-                                        else if (type.toString().equals("boolean"))
-                                        {
-                                            w.append("Boolean");
-                                        }
-                                        else
-                                        {
-                                            w.append(type.toString());
-                                        }
-                                    }
-                                    else
-                                    {
-                                        String name = type.toString();
-
-                                        TypeMirror target = null;
-                                        for (int i=0;i<annotationsWithTargetEntity.length;i++)
-                                        {
-                                            Object targetValue = AnnotationProcessorUtils.getValueForAnnotationAttribute(member, annotationsWithTargetEntity[i], "targetEntity");
-                                            if (targetValue != null)
-                                            {
-                                                target = (TypeMirror)targetValue;
-                                                break;
-                                            }
-                                        }
-                                        if (target != null)
-                                        {
-                                            name = target.toString();
-                                        }
-                                        else if (genericLookups != null && genericLookups.containsKey(name))
-                                        {
-                                            // This is a generic type, so replace with the bound type; equates to "T extends MyOtherType" and putting "MyOtherType" in
-                                            name = genericLookups.get(name).toString();
-                                        }
-                                        else
-                                        {
-                                            if (name.charAt(0) == '@' && name.indexOf(" ") > 0)
-                                            {
-                                                // When we have a field 
-                                                // @NotNull @Size(max=32) String myField
-                                                // This sometimes gives type.toString() as 
-                                                // @javax.validation.constraints.NotNull,@javax.validation.constraints.Size(max=32) java.lang.String
-                                                // TODO WHY?????
-                                                // so remove the annotations. Is there a cleaner way?
-                                                name = name.substring(name.indexOf(" ") +1).trim();
-                                            }
-                                        }
-                                        w.append(name);
-                                    }
-                                }
-                                else if (cat == TypeCategory.MAP)
-                                {
-                                    TypeMirror keyType = getTypeParameter(member, type, 0, false);
-                                    String keyTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, keyType, true);
-                                    TypeMirror valueType = getTypeParameter(member, type, 1, true);
-                                    String valueTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, valueType, true);
-                                    w.append(keyTypeName + ", " + valueTypeName);
-                                }
-                                else if (cat == TypeCategory.COLLECTION || cat == TypeCategory.LIST || cat == TypeCategory.SET)
-                                {
-                                    TypeMirror elementType = getTypeParameter(member, type, 0, true);
-                                    String elementTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, elementType, true);
-                                    w.append(elementTypeName);
-                                }
-                                else
-                                {
-                                    TypeMirror elementType = getTypeParameter(member, type, 0, true);
-                                    String elementTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, elementType, true);
-                                    w.append(elementTypeName);
-                                }
-                                w.append("> " + memberName + ";\n");
-                            }
+                            // When we have a field 
+                            // @NotNull @Size(max=32) String myField
+                            // This sometimes gives type.toString() as 
+                            // @javax.validation.constraints.NotNull,@javax.validation.constraints.Size(max=32) java.lang.String
+                            // TODO WHY?????
+                            // so remove the annotations. Is there a cleaner way?
+                            name = name.substring(name.indexOf(" ") +1).trim();
                         }
                     }
+                    typeArgNames.add(name);
                 }
-
-                w.append("}\n");
-                w.flush();
             }
-            finally
+            else if (cat == TypeCategory.MAP)
             {
-                w.close();
+                TypeMirror keyType = getTypeParameter(member, type, 0, false);
+                String keyTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, keyType, true);
+                TypeMirror valueType = getTypeParameter(member, type, 1, true);
+                String valueTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, valueType, true);
+                typeArgNames.add(keyTypeName);
+                typeArgNames.add(valueTypeName);
             }
+            else if (cat == TypeCategory.COLLECTION || cat == TypeCategory.LIST || cat == TypeCategory.SET)
+            {
+                TypeMirror elementType = getTypeParameter(member, type, 0, true);
+                String elementTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, elementType, true);
+                typeArgNames.add(elementTypeName);
+            }
+            else
+            {
+                TypeMirror elementType = getTypeParameter(member, type, 0, true);
+                String elementTypeName = AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, elementType, true);
+                typeArgNames.add(elementTypeName);
+            }
+            attributes.add(new MetamodelAttribute(memberName, cat, typeArgNames, member));
         }
-        catch (IOException e)
+        metamodelAttributesCache.put(el, attributes);
+        return attributes;
+    }
+
+    /**
+     * Method to return the metamodel attributes of the supplied class including those of persistent superclasses,
+     * with the attributes of the root persistent class first, then in declaration order.
+     * @param el The class element
+     * @return The attributes
+     */
+    public List<MetamodelAttribute> getAllMetamodelAttributes(TypeElement el)
+    {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        TypeElement typeEl = el;
+        while (typeEl != null)
         {
-            e.printStackTrace();
+            hierarchy.add(0, typeEl);
+            typeEl = getPersistentSupertype(typeEl);
+        }
+
+        List<MetamodelAttribute> attributes = new ArrayList<MetamodelAttribute>();
+        for (TypeElement hierEl : hierarchy)
+        {
+            attributes.addAll(getMetamodelAttributes(hierEl));
         }
+        return attributes;
     }
 
     TypeMirror getTypeParameter(Element element, TypeMirror type, int position, boolean checkTarget)
@@ -377,7 +639,7 @@ public class JPACriteriaProcessor extends AbstractProcessor
             TypeMirror target = null;
             for (int i=0;i<annotationsWithTargetEntity.length;i++)
             {
-                Object targetValue = AnnotationProcessorUtils.getValueForAnnotationAttribute(element, annotationsWithTargetEntity[i], "targetEntity");
+                Object targetValue = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(element, annotationsWithTargetEntity[i], "targetEntity");
                 if (targetValue != null)
                 {
                     target = (TypeMirror)targetValue;
@@ -416,6 +678,73 @@ public class JPACriteriaProcessor extends AbstractProcessor
         }
         return getPersistentSupertype(superElement);
     }
+
+    /**
+     * Accessor for the persistent members declared by the supplied type element, in declaration order.
+     * Takes into account the access type of the class, and omits static and transient members.
+     * @param el The type element
+     * @return The persistent members (fields or java bean getters)
+     */
+    public List<Element> getPersistentMembers(TypeElement el)
+    {
+        // Find the members to use for persistence processing
+        Object clsAccessType = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(el, "Access", "value");
+        String clsAccessTypeName = (clsAccessType != null) ? clsAccessType.toString() : null;
+        List<? extends Element> members = null;
+        if ("FIELD".equals(clsAccessTypeName))
+        {
+            // Only use fields
+            members = AnnotationProcessorUtils.getFieldMembers(el);
+        }
+        else if ("PROPERTY".equals(clsAccessTypeName))
+        {
+            // Only use properties
+            members = AnnotationProcessorUtils.getPropertyMembers(el);
+        }
+        else
+        {
+            // Default access type - whichever type (field or method) is annotated first
+            members = getDefaultAccessMembers(el);
+        }
+
+        List<Element> persistentMembers = new ArrayList<Element>();
+        if (members != null)
+        {
+            Iterator<? extends Element> iter = members.iterator();
+            while (iter.hasNext())
+            {
+                Element member = iter.next();
+                boolean isTransient = false;
+                List<? extends AnnotationMirror> annots = member.getAnnotationMirrors();
+                if (annots != null)
+                {
+                    Iterator<? extends AnnotationMirror> annotIter = annots.iterator();
+                    while (annotIter.hasNext())
+                    {
+                        AnnotationMirror annot = annotIter.next();
+                        if (AnnotationProcessorUtils.isPersistenceAnnotation(annot, "Transient"))
+                        {
+                            // Ignore this
+                            isTransient = true;
+                            break;
+                        }
+                    }
+                }
+
+                // Don't create static meta-model for STATIC or transient members
+                if (!member.getModifiers().contains(javax.lang.model.element.Modifier.STATIC) && !isTransient)
+                {
+                    if (member.getKind() == ElementKind.FIELD ||
+                        (member.getKind() == ElementKind.METHOD && AnnotationProcessorUtils.isJavaBeanGetter((ExecutableElement) member)))
+                    {
+                        persistentMembers.add(member);
+                    }
+                }
+            }
+        }
+        return persistentMembers;
+    }
+
     /**
      * Convenience accessor for members for the default access type of the supplied type element.
      * If properties are annotated then returns all properties, otherwise returns all fields. 
@@ -440,7 +769,8 @@ public class JPACriteriaProcessor extends AbstractProcessor
                     {
                         AnnotationMirror ann = annIter.next();
                         String annTypeName = ann.getAnnotationType().toString();
-                        if (annTypeName.startsWith("javax.persistence"))
+                        if (annTypeName.startsWith(AnnotationProcessorUtils.PERSISTENCE_PACKAGES[0]) ||
+                            annTypeName.startsWith(AnnotationProcessorUtils.PERSISTENCE_PACKAGES[1]))
                         {
                             return AnnotationProcessorUtils.getPropertyMembers(el);
                         }
@@ -458,9 +788,9 @@ public class JPACriteriaProcessor extends AbstractProcessor
      */
     public static boolean isJPAAnnotated(TypeElement el)
     {
-        if ((el.getAnnotation(Entity.class) != null) ||
-            (el.getAnnotation(MappedSuperclass.class) != null) ||
-            (el.getAnnotation(Embeddable.class) != null))
+        if (AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Entity") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(el, "MappedSuperclass") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Embeddable"))
         {
             return true;
         }
@@ -0,0 +1,434 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Writer for metamodel classes directly as class files, avoiding the extra compilation round needed when
+ * generating source. The class file has the same form as would be compiled from the generated source, namely
+ * <ul>
+ * <li>a public class extending the metamodel class of the persistent superclass (or java.lang.Object)</li>
+ * <li>a RuntimeVisibleAnnotations attribute with the StaticMetamodel annotation referencing the managed class</li>
+ * <li>a public static volatile field per attribute, with a Signature attribute giving its generic type</li>
+ * <li>a public no-arg constructor</li>
+ * </ul>
+ * The Generated annotation has source retention so is not present in the class file.
+ */
+public class MetamodelClassWriter
+{
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_VOLATILE = 0x0040;
+
+    private final ProcessingEnvironment processingEnv;
+
+    public MetamodelClassWriter(ProcessingEnvironment processingEnv)
+    {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Method to write the metamodel class file for the supplied managed class.
+     * @param el The managed class element
+     * @param className Binary name of the metamodel class
+     * @param superClassName Binary name of the metamodel class of the persistent superclass (or null if none)
+     * @param namespace The persistence API namespace ("javax" or "jakarta")
+     * @param attributes The metamodel attributes
+     */
+    public void write(TypeElement el, String className, String superClassName, String namespace, List<MetamodelAttribute> attributes)
+    {
+        String managedClassName = processingEnv.getElementUtils().getBinaryName(el).toString();
+        try
+        {
+            byte[] bytes = getClassBytes(className, managedClassName, superClassName, namespace, attributes);
+            JavaFileObject classFile = processingEnv.getFiler().createClassFile(className, el);
+            OutputStream os = classFile.openOutputStream();
+            try
+            {
+                os.write(bytes);
+                os.flush();
+            }
+            finally
+            {
+                os.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to generate the bytes of the metamodel class file.
+     * @param className Binary name of the metamodel class
+     * @param managedClassName Binary name of the managed class
+     * @param superClassName Binary name of the superclass (or null for java.lang.Object)
+     * @param namespace The persistence API namespace ("javax" or "jakarta")
+     * @param attributes The metamodel attributes
+     * @return The class file bytes
+     * @throws IOException if an error occurs writing the bytes
+     */
+    protected byte[] getClassBytes(String className, String managedClassName, String superClassName, String namespace,
+            List<MetamodelAttribute> attributes)
+    throws IOException
+    {
+        String metamodelPackage = namespace + "/persistence/metamodel/";
+        ConstantPool cp = new ConstantPool();
+        String internalName = className.replace('.', '/');
+        String superInternalName = (superClassName != null) ? superClassName.replace('.', '/') : "java/lang/Object";
+        String managedSig = "L" + managedClassName.replace('.', '/') + ";";
+
+        // Write the body first so that all constants are registered before the pool is output
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeShort(ACC_PUBLIC | ACC_SUPER);
+        body.writeShort(cp.classRef(internalName));
+        body.writeShort(cp.classRef(superInternalName));
+        body.writeShort(0); // interfaces
+
+        body.writeShort(attributes.size());
+        for (MetamodelAttribute attr : attributes)
+        {
+            String attrInternalName = metamodelPackage + attr.category.getTypeName();
+            StringBuilder sig = new StringBuilder("L").append(attrInternalName).append('<').append(managedSig);
+            for (String typeArgName : attr.typeArgNames)
+            {
+                sig.append(getSignature(typeArgName));
+            }
+            sig.append(">;");
+
+            body.writeShort(ACC_PUBLIC | ACC_STATIC | ACC_VOLATILE);
+            body.writeShort(cp.utf8(attr.name));
+            body.writeShort(cp.utf8("L" + attrInternalName + ";"));
+            body.writeShort(1);
+            body.writeShort(cp.utf8("Signature"));
+            body.writeInt(2);
+            body.writeShort(cp.utf8(sig.toString()));
+        }
+
+        // Default constructor : aload_0, invokespecial super.<init>()V, return
+        body.writeShort(1);
+        body.writeShort(ACC_PUBLIC);
+        body.writeShort(cp.utf8("<init>"));
+        body.writeShort(cp.utf8("()V"));
+        body.writeShort(1);
+        body.writeShort(cp.utf8("Code"));
+        body.writeInt(17);
+        body.writeShort(1); // max stack
+        body.writeShort(1); // max locals
+        body.writeInt(5);
+        body.writeByte(0x2a);
+        body.writeByte(0xb7);
+        body.writeShort(cp.methodRef(superInternalName, "<init>", "()V"));
+        body.writeByte(0xb1);
+        body.writeShort(0); // exception table
+        body.writeShort(0); // code attributes
+
+        // @StaticMetamodel(X.class)
+        body.writeShort(1);
+        body.writeShort(cp.utf8("RuntimeVisibleAnnotations"));
+        body.writeInt(11);
+        body.writeShort(1);
+        body.writeShort(cp.utf8("L" + metamodelPackage + "StaticMetamodel;"));
+        body.writeShort(1);
+        body.writeShort(cp.utf8("value"));
+        body.writeByte('c');
+        body.writeShort(cp.utf8(managedSig));
+        body.flush();
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(getMajorVersion());
+        out.writeShort(cp.count);
+        cp.bytes.writeTo(out);
+        bodyBytes.writeTo(out);
+        out.flush();
+        return classBytes.toByteArray();
+    }
+
+    /**
+     * Accessor for the class file major version to use, matching the source version being compiled.
+     * @return The major version
+     */
+    protected int getMajorVersion()
+    {
+        // RELEASE_5 = 49, RELEASE_6 = 50, ... and annotations need at least 49
+        return Math.max(49, 44 + processingEnv.getSourceVersion().ordinal());
+    }
+
+    /**
+     * Method to convert a type name as used in the generated source (e.g "java.util.List&lt;java.lang.String&gt;",
+     * "byte[]", "Long") into a JVM type signature.
+     * @param typeName The type name
+     * @return The signature
+     */
+    protected String getSignature(String typeName)
+    {
+        int[] pos = new int[] {0};
+        return parseSignature(typeName, pos);
+    }
+
+    private String parseSignature(String str, int[] pos)
+    {
+        skipWhitespaceAndAnnotations(str, pos);
+        if (pos[0] < str.length() && str.charAt(pos[0]) == '?')
+        {
+            pos[0]++;
+            skipWhitespaceAndAnnotations(str, pos);
+            if (str.startsWith("extends", pos[0]))
+            {
+                pos[0] += 7;
+                return "+" + parseSignature(str, pos);
+            }
+            else if (str.startsWith("super", pos[0]))
+            {
+                pos[0] += 5;
+                return "-" + parseSignature(str, pos);
+            }
+            return "*";
+        }
+
+        String name = readName(str, pos);
+        skipWhitespaceAndAnnotations(str, pos);
+        String typeArgs = null;
+        if (pos[0] < str.length() && str.charAt(pos[0]) == '<')
+        {
+            StringBuilder args = new StringBuilder("<");
+            pos[0]++;
+            while (pos[0] < str.length())
+            {
+                args.append(parseSignature(str, pos));
+                skipWhitespaceAndAnnotations(str, pos);
+                char c = (pos[0] < str.length()) ? str.charAt(pos[0]) : '>';
+                pos[0]++;
+                if (c == '>')
+                {
+                    break;
+                }
+            }
+            typeArgs = args.append('>').toString();
+        }
+
+        int dims = 0;
+        skipWhitespaceAndAnnotations(str, pos);
+        while (str.startsWith("[]", pos[0]))
+        {
+            dims++;
+            pos[0] += 2;
+            skipWhitespaceAndAnnotations(str, pos);
+        }
+
+        StringBuilder sig = new StringBuilder();
+        for (int i=0;i<dims;i++)
+        {
+            sig.append('[');
+        }
+        String primitiveSig = getPrimitiveDescriptor(name);
+        if (primitiveSig != null)
+        {
+            sig.append(primitiveSig);
+        }
+        else
+        {
+            sig.append('L').append(getInternalName(name));
+            if (typeArgs != null)
+            {
+                sig.append(typeArgs);
+            }
+            sig.append(';');
+        }
+        return sig.toString();
+    }
+
+    private String readName(String str, int[] pos)
+    {
+        int start = pos[0];
+        while (pos[0] < str.length() && (Character.isJavaIdentifierPart(str.charAt(pos[0])) || str.charAt(pos[0]) == '.'))
+        {
+            pos[0]++;
+        }
+        return str.substring(start, pos[0]);
+    }
+
+    private void skipWhitespaceAndAnnotations(String str, int[] pos)
+    {
+        while (pos[0] < str.length())
+        {
+            char c = str.charAt(pos[0]);
+            if (Character.isWhitespace(c))
+            {
+                pos[0]++;
+            }
+            else if (c == '@')
+            {
+                // Type annotation, e.g "@javax.validation.constraints.Size(max=32)", possibly comma separated
+                pos[0]++;
+                readName(str, pos);
+                if (pos[0] < str.length() && str.charAt(pos[0]) == '(')
+                {
+                    int depth = 0;
+                    do
+                    {
+                        char ch = str.charAt(pos[0]++);
+                        depth += (ch == '(') ? 1 : (ch == ')') ? -1 : 0;
+                    }
+                    while (depth > 0 && pos[0] < str.length());
+                }
+                if (str.startsWith(",@", pos[0]))
+                {
+                    pos[0]++;
+                }
+            }
+            else
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Method to return the internal name (e.g "java/util/Map$Entry") for a (canonical or simple java.lang) class name.
+     * @param name The class name
+     * @return The internal name
+     */
+    private String getInternalName(String name)
+    {
+        TypeElement typeEl = processingEnv.getElementUtils().getTypeElement(name);
+        if (typeEl == null && name.indexOf('.') < 0)
+        {
+            typeEl = processingEnv.getElementUtils().getTypeElement("java.lang." + name);
+        }
+        if (typeEl != null)
+        {
+            return processingEnv.getElementUtils().getBinaryName(typeEl).toString().replace('.', '/');
+        }
+        if (name.indexOf('.') < 0)
+        {
+            // Unresolved type variable, so use its erasure
+            return "java/lang/Object";
+        }
+        return name.replace('.', '/');
+    }
+
+    private static String getPrimitiveDescriptor(String name)
+    {
+        switch (name)
+        {
+            case "boolean":
+                return "Z";
+            case "byte":
+                return "B";
+            case "char":
+                return "C";
+            case "short":
+                return "S";
+            case "int":
+                return "I";
+            case "long":
+                return "J";
+            case "float":
+                return "F";
+            case "double":
+                return "D";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Class file constant pool, holding each constant once.
+     */
+    static class ConstantPool
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final Map<String, Integer> entries = new HashMap<String, Integer>();
+        int count = 1;
+
+        int utf8(String value) throws IOException
+        {
+            Integer idx = entries.get("U" + value);
+            if (idx == null)
+            {
+                out.writeByte(1);
+                out.writeUTF(value);
+                idx = add("U" + value);
+            }
+            return idx;
+        }
+
+        int classRef(String internalName) throws IOException
+        {
+            Integer idx = entries.get("C" + internalName);
+            if (idx == null)
+            {
+                int nameIdx = utf8(internalName);
+                out.writeByte(7);
+                out.writeShort(nameIdx);
+                idx = add("C" + internalName);
+            }
+            return idx;
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException
+        {
+            String key = "M" + owner + "." + name + descriptor;
+            Integer idx = entries.get(key);
+            if (idx == null)
+            {
+                int classIdx = classRef(owner);
+                int nameIdx = utf8(name);
+                int descIdx = utf8(descriptor);
+                out.writeByte(12);
+                out.writeShort(nameIdx);
+                out.writeShort(descIdx);
+                int natIdx = add("N" + name + descriptor);
+                out.writeByte(10);
+                out.writeShort(classIdx);
+                out.writeShort(natIdx);
+                idx = add(key);
+            }
+            return idx;
+        }
+
+        private int add(String key) throws IOException
+        {
+            out.flush();
+            int idx = count++;
+            entries.put(key, idx);
+            return idx;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Generator for GraalVM native-image configuration for the persistent classes and their metamodel classes.
+ * Writes <i>META-INF/native-image/{path}/reflect-config.json</i> registering only what the persistence runtime needs
+ * <ul>
+ * <li>for each persistent class : the no-arg constructor, plus the persistent fields (field access) or the
+ * persistent getters and setters (property access)</li>
+ * <li>for each IdClass : the no-arg constructor and its fields / getters and setters</li>
+ * <li>for each metamodel class : its static attribute fields, which are set by the runtime</li>
+ * <li>for each projection : the constructor used by Criteria <i>construct</i></li>
+ * </ul>
+ * and <i>META-INF/native-image/{path}/resource-config.json</i> including the JPA descriptors.
+ * The configuration is accumulated over all rounds and written when processing is over.
+ */
+public class NativeImageConfigGenerator
+{
+    public static final String DEFAULT_PATH = "jpa-metamodel";
+
+    private final ProcessingEnvironment processingEnv;
+
+    private final String path;
+
+    /** Reflection entries keyed by class name, with value being the JSON of the members. */
+    private final Map<String, String> reflectEntries = new LinkedHashMap<String, String>();
+
+    public NativeImageConfigGenerator(ProcessingEnvironment processingEnv, String path)
+    {
+        this.processingEnv = processingEnv;
+        this.path = (path != null && path.length() > 0) ? path : DEFAULT_PATH;
+    }
+
+    /**
+     * Method to register a persistent class (or IdClass) with its persistent members.
+     * @param el The class element
+     * @param members The persistent members (fields or java bean getters)
+     */
+    public void addPersistentClass(TypeElement el, List<? extends Element> members)
+    {
+        String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+        List<String> fields = new ArrayList<String>();
+        List<String> methods = new ArrayList<String>();
+        methods.add(getMethodJson("<init>"));
+        for (Element member : members)
+        {
+            if (member.getKind() == ElementKind.FIELD)
+            {
+                fields.add("{\"name\":\"" + member.getSimpleName() + "\",\"allowWrite\":true}");
+            }
+            else if (member.getKind() == ElementKind.METHOD)
+            {
+                methods.add(getMethodJson(member.getSimpleName().toString()));
+                ExecutableElement setter = getSetterForGetter((ExecutableElement)member);
+                if (setter != null)
+                {
+                    methods.add(getMethodJson(setter.getSimpleName().toString(), setter.getParameters().get(0).asType()));
+                }
+            }
+        }
+        reflectEntries.put(className, getClassJson(className, fields, methods));
+    }
+
+    /**
+     * Method to register a metamodel class with its attributes.
+     * @param className Binary name of the metamodel class
+     * @param attributes The metamodel attributes
+     */
+    public void addMetamodelClass(String className, List<MetamodelAttribute> attributes)
+    {
+        List<String> fields = new ArrayList<String>();
+        for (MetamodelAttribute attr : attributes)
+        {
+            fields.add("{\"name\":\"" + attr.name + "\",\"allowWrite\":true}");
+        }
+        reflectEntries.put(className, getClassJson(className, fields, null));
+    }
+
+    /**
+     * Method to register a class that is instantiated reflectively using the constructor with the specified parameters,
+     * such as a projection constructed by a Criteria query.
+     * @param className Binary name of the class
+     * @param paramTypes Types of the constructor parameters
+     */
+    public void addConstructedClass(String className, List<TypeMirror> paramTypes)
+    {
+        List<String> methods = new ArrayList<String>();
+        methods.add(getMethodJson("<init>", paramTypes.toArray(new TypeMirror[paramTypes.size()])));
+        reflectEntries.put(className, getClassJson(className, null, methods));
+    }
+
+    /**
+     * Method to write the configuration files, called when processing is over.
+     */
+    public void write()
+    {
+        if (reflectEntries.isEmpty())
+        {
+            return;
+        }
+
+        StringBuilder reflect = new StringBuilder("[\n");
+        Iterator<String> entryIter = reflectEntries.values().iterator();
+        while (entryIter.hasNext())
+        {
+            reflect.append("  ").append(entryIter.next());
+            reflect.append(entryIter.hasNext() ? ",\n" : "\n");
+        }
+        reflect.append("]\n");
+        writeResource("reflect-config.json", reflect.toString());
+
+        writeResource("resource-config.json",
+            "{\n" +
+            "  \"resources\":{\n" +
+            "    \"includes\":[\n" +
+            "      {\"pattern\":\"\\\\QMETA-INF/persistence.xml\\\\E\"},\n" +
+            "      {\"pattern\":\"\\\\QMETA-INF/orm.xml\\\\E\"}\n" +
+            "    ]\n" +
+            "  }\n" +
+            "}\n");
+    }
+
+    private void writeResource(String fileName, String content)
+    {
+        String resourceName = "META-INF/native-image/" + path + "/" + fileName;
+        System.out.println("DataNucleus : JPA Native Image - " + resourceName);
+        try
+        {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            Writer w = file.openWriter();
+            try
+            {
+                w.append(content);
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private static String getClassJson(String className, List<String> fields, List<String> methods)
+    {
+        StringBuilder str = new StringBuilder("{\"name\":\"").append(className).append("\"");
+        if (fields != null && !fields.isEmpty())
+        {
+            str.append(",\"fields\":[").append(String.join(",", fields)).append("]");
+        }
+        if (methods != null && !methods.isEmpty())
+        {
+            str.append(",\"methods\":[").append(String.join(",", methods)).append("]");
+        }
+        return str.append("}").toString();
+    }
+
+    private String getMethodJson(String name, TypeMirror... paramTypes)
+    {
+        StringBuilder str = new StringBuilder("{\"name\":\"").append(name).append("\",\"parameterTypes\":[");
+        for (int i=0;i<paramTypes.length;i++)
+        {
+            if (i > 0)
+            {
+                str.append(",");
+            }
+            str.append("\"").append(getTypeName(paramTypes[i])).append("\"");
+        }
+        return str.append("]}").toString();
+    }
+
+    /**
+     * Method to return the name of the (erased) type in the form used by native-image configuration,
+     * e.g "int", "java.lang.String", "p.Outer$Inner", "byte[]".
+     * @param type The type
+     * @return The type name
+     */
+    private String getTypeName(TypeMirror type)
+    {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() == TypeKind.ARRAY)
+        {
+            return getTypeName(((ArrayType)erasure).getComponentType()) + "[]";
+        }
+        else if (erasure.getKind() == TypeKind.DECLARED)
+        {
+            return processingEnv.getElementUtils().getBinaryName((TypeElement)processingEnv.getTypeUtils().asElement(erasure)).toString();
+        }
+        return erasure.toString();
+    }
+
+    private ExecutableElement getSetterForGetter(ExecutableElement getter)
+    {
+        String setterName = "set" + getter.getSimpleName().toString().substring(getter.getSimpleName().toString().startsWith("is") ? 2 : 3);
+        for (Element sibling : getter.getEnclosingElement().getEnclosedElements())
+        {
+            if (sibling.getKind() == ElementKind.METHOD && sibling.getSimpleName().toString().equals(setterName) &&
+                ((ExecutableElement)sibling).getParameters().size() == 1)
+            {
+                return (ExecutableElement)sibling;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,425 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Analysis of the mapping annotations of persistent classes for patterns known to perform badly at runtime.
+ * Each finding is reported as a warning (or an error in strict mode), prefixed by the rule id.
+ * <ul>
+ * <li><b>eager-collections</b> : an entity with more than one EAGER collection association, giving a cartesian product when fetched</li>
+ * <li><b>eager-to-one-chain</b> : an EAGER ManyToOne/OneToOne whose related entity itself has an EAGER ManyToOne/OneToOne, so
+ * that loading one object fans out to several</li>
+ * <li><b>list-bag</b> : a OneToMany/ManyToMany/ElementCollection of type List without an OrderColumn, so having bag semantics</li>
+ * <li><b>unindexed-fk</b> : a ManyToOne/OneToOne foreign key column that is not the leading column of an index in the Table
+ * holding it (that of the root entity for SINGLE_TABLE inheritance)</li>
+ * </ul>
+ * A rule can be suppressed for the whole compilation using the processor option, or for a class or member using
+ * <pre>@SuppressWarnings("jpa-lint:{rule}")</pre> (or <pre>@SuppressWarnings("jpa-lint")</pre> for all rules).
+ */
+public class PerformanceLint
+{
+    public static final String RULE_EAGER_COLLECTIONS = "eager-collections";
+    public static final String RULE_EAGER_TO_ONE_CHAIN = "eager-to-one-chain";
+    public static final String RULE_LIST_BAG = "list-bag";
+    public static final String RULE_UNINDEXED_FK = "unindexed-fk";
+
+    private static final String SUPPRESS_PREFIX = "jpa-lint";
+
+    private final JPACriteriaProcessor processor;
+
+    private final ProcessingEnvironment processingEnv;
+
+    private final boolean strict;
+
+    private final Set<String> suppressedRules = new HashSet<String>();
+
+    /** Names of the EAGER to-one attributes of each entity analysed, keyed by entity class name. */
+    private final Map<String, List<String>> eagerToOneNamesByType = new HashMap<String, List<String>>();
+
+    /**
+     * Constructor.
+     * @param processor The processor
+     * @param processingEnv Processing environment
+     * @param strict Whether to report findings as errors
+     * @param suppressed Comma-separated rules to suppress (or null)
+     */
+    public PerformanceLint(JPACriteriaProcessor processor, ProcessingEnvironment processingEnv, boolean strict, String suppressed)
+    {
+        this.processor = processor;
+        this.processingEnv = processingEnv;
+        this.strict = strict;
+        if (suppressed != null)
+        {
+            for (String rule : suppressed.split(","))
+            {
+                if (rule.trim().length() > 0)
+                {
+                    suppressedRules.add(rule.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to analyse the supplied persistent class.
+     * Member rules are applied to the attributes declared by this class, and entity rules to the attributes
+     * of the entity that are in its table, being those declared by it and by any MappedSuperclass between it and
+     * its nearest entity superclass (whose attributes are checked with that entity).
+     * @param el The class element
+     */
+    public void check(TypeElement el)
+    {
+        for (MetamodelAttribute attr : processor.getMetamodelAttributes(el))
+        {
+            checkListBag(attr);
+            checkEagerToOneChain(el, attr);
+        }
+
+        if (AnnotationProcessorUtils.hasPersistenceAnnotation(el, "Entity"))
+        {
+            List<MetamodelAttribute> tableAttributes = getTableAttributes(el);
+            checkEagerCollections(el, tableAttributes);
+            for (MetamodelAttribute attr : tableAttributes)
+            {
+                checkUnindexedForeignKey(el, attr);
+            }
+        }
+    }
+
+    /**
+     * Method to return the attributes of the entity declared by it and by its MappedSuperclass ancestors up to
+     * its nearest entity superclass, with those of the root-most MappedSuperclass first.
+     * @param el The entity
+     * @return The attributes
+     */
+    protected List<MetamodelAttribute> getTableAttributes(TypeElement el)
+    {
+        List<MetamodelAttribute> attributes = new ArrayList<MetamodelAttribute>(processor.getMetamodelAttributes(el));
+        TypeElement superEl = processor.getPersistentSupertype(el);
+        while (superEl != null && !AnnotationProcessorUtils.hasPersistenceAnnotation(superEl, "Entity"))
+        {
+            attributes.addAll(0, processor.getMetamodelAttributes(superEl));
+            superEl = processor.getPersistentSupertype(superEl);
+        }
+        return attributes;
+    }
+
+    protected void checkListBag(MetamodelAttribute attr)
+    {
+        if (attr.category == TypeCategory.LIST && isCollectionRelation(attr.member) &&
+            !AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "OrderColumn"))
+        {
+            report(RULE_LIST_BAG, attr.member, "List \"" + attr.name + "\" has no @OrderColumn so has bag semantics, " +
+                "meaning that any change to it will delete and reinsert all elements. Add an @OrderColumn or use a Set");
+        }
+    }
+
+    protected void checkEagerToOneChain(TypeElement el, MetamodelAttribute attr)
+    {
+        if (!isEagerToOne(attr.member))
+        {
+            return;
+        }
+
+        // Only look one hop ahead, so the check is bounded whatever the shape of the model (cycles included)
+        TypeElement relatedEl = getRelatedType(attr.member);
+        List<String> relatedEager = getEagerToOneNames(relatedEl);
+        if (!relatedEager.isEmpty())
+        {
+            report(RULE_EAGER_TO_ONE_CHAIN, attr.member, "EAGER to-one \"" + attr.name + "\" has target " + relatedEl.getSimpleName() +
+                " which has EAGER to-one " + relatedEager + " so loading one " + el.getSimpleName() +
+                " loads further objects in turn. Make some of these LAZY");
+        }
+    }
+
+    /**
+     * Method to return the names of the EAGER to-one attributes of the supplied type (including inherited attributes).
+     * The result is cached for the compilation so each type is only analysed once.
+     * @param typeEl The type
+     * @return The attribute names, in the form "{Class}.{attribute}"
+     */
+    private List<String> getEagerToOneNames(TypeElement typeEl)
+    {
+        if (typeEl == null || !AnnotationProcessorUtils.hasPersistenceAnnotation(typeEl, "Entity"))
+        {
+            return Collections.emptyList();
+        }
+
+        String typeName = typeEl.getQualifiedName().toString();
+        List<String> names = eagerToOneNamesByType.get(typeName);
+        if (names == null)
+        {
+            names = new ArrayList<String>();
+            for (MetamodelAttribute attr : processor.getAllMetamodelAttributes(typeEl))
+            {
+                if (isEagerToOne(attr.member))
+                {
+                    names.add(typeEl.getSimpleName() + "." + attr.name);
+                }
+            }
+            eagerToOneNamesByType.put(typeName, names);
+        }
+        return names;
+    }
+
+    protected void checkEagerCollections(TypeElement el, List<MetamodelAttribute> attributes)
+    {
+        List<String> eagerNames = new ArrayList<String>();
+        for (MetamodelAttribute attr : attributes)
+        {
+            if (attr.category != TypeCategory.ATTRIBUTE && isCollectionRelation(attr.member) && isEager(attr.member, false) &&
+                !isSuppressed(RULE_EAGER_COLLECTIONS, attr.member))
+            {
+                eagerNames.add(attr.name);
+            }
+        }
+        if (eagerNames.size() > 1)
+        {
+            report(RULE_EAGER_COLLECTIONS, el, "Entity " + el.getSimpleName() + " has " + eagerNames.size() + " EAGER collections " + eagerNames +
+                " so fetching it joins them all, giving a cartesian product of rows. Make all but one LAZY");
+        }
+    }
+
+    protected void checkUnindexedForeignKey(TypeElement el, MetamodelAttribute attr)
+    {
+        if (!AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "ManyToOne") && !AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "OneToOne"))
+        {
+            return;
+        }
+        if (AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(attr.member, "OneToOne", "mappedBy") != null)
+        {
+            // Not the owner, so no FK in this table
+            return;
+        }
+        if (AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "JoinColumns") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "JoinTable") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(attr.member, "MapsId"))
+        {
+            // FK is not a single column of this table (composite, in a join table, or shared with the PK)
+            return;
+        }
+
+        String columnName = (String)AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(attr.member, "JoinColumn", "name");
+        if (columnName == null)
+        {
+            // Default FK column name is "{attribute}_{related PK column}", where the PK column defaults to the Id attribute name
+            TypeElement relatedEl = getRelatedType(attr.member);
+            String relatedIdName = null;
+            if (relatedEl != null)
+            {
+                for (MetamodelAttribute relatedAttr : processor.getAllMetamodelAttributes(relatedEl))
+                {
+                    if (AnnotationProcessorUtils.hasPersistenceAnnotation(relatedAttr.member, "Id"))
+                    {
+                        if (relatedIdName != null)
+                        {
+                            // Composite FK so can't determine the columns
+                            return;
+                        }
+                        Object relatedIdColumn = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(relatedAttr.member, "Column", "name");
+                        relatedIdName = (relatedIdColumn != null && relatedIdColumn.toString().length() > 0) ? relatedIdColumn.toString() : relatedAttr.name;
+                    }
+                }
+            }
+            if (relatedIdName == null)
+            {
+                return;
+            }
+            columnName = attr.name + "_" + relatedIdName;
+        }
+
+        TypeElement tableEl = getTableEntity(el);
+        if (!isLeadingIndexColumn(tableEl, columnName))
+        {
+            Element reportEl = (attr.member.getEnclosingElement() == el) ? attr.member : el;
+            report(RULE_UNINDEXED_FK, reportEl, "Foreign key column \"" + columnName + "\" of \"" + attr.name + "\" has no index, " +
+                "so joins and deletes of the related object will scan the table. Add an @Index to the @Table of " + tableEl.getSimpleName());
+        }
+    }
+
+    /**
+     * Method to return the entity whose table holds the columns of the attributes declared by the supplied entity.
+     * This is the root entity of the inheritance hierarchy for SINGLE_TABLE (the default) inheritance, otherwise
+     * the entity itself.
+     * @param el The entity
+     * @return The entity defining the table
+     */
+    private TypeElement getTableEntity(TypeElement el)
+    {
+        TypeElement rootEl = el;
+        TypeElement superEl = processor.getPersistentSupertype(el);
+        while (superEl != null)
+        {
+            if (AnnotationProcessorUtils.hasPersistenceAnnotation(superEl, "Entity"))
+            {
+                rootEl = superEl;
+            }
+            superEl = processor.getPersistentSupertype(superEl);
+        }
+        if (rootEl == el)
+        {
+            return el;
+        }
+
+        Object strategy = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(rootEl, "Inheritance", "strategy");
+        return (strategy == null || "SINGLE_TABLE".equals(strategy.toString())) ? rootEl : el;
+    }
+
+    /**
+     * Method to return whether the specified column is the leading column of any index defined in the Table annotation.
+     * @param el The entity class
+     * @param columnName The column name
+     * @return Whether it is indexed
+     */
+    private boolean isLeadingIndexColumn(TypeElement el, String columnName)
+    {
+        Object indexes = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(el, "Table", "indexes");
+        if (indexes instanceof List)
+        {
+            for (Object index : (List)indexes)
+            {
+                AnnotationMirror indexAnn = (AnnotationMirror)((AnnotationValue)index).getValue();
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : indexAnn.getElementValues().entrySet())
+                {
+                    if (entry.getKey().getSimpleName().toString().equals("columnList"))
+                    {
+                        String leadingColumn = entry.getValue().getValue().toString().split(",")[0].trim().split("\\s+")[0];
+                        if (leadingColumn.equalsIgnoreCase(columnName))
+                        {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isCollectionRelation(Element member)
+    {
+        return AnnotationProcessorUtils.hasPersistenceAnnotation(member, "OneToMany") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(member, "ManyToMany") ||
+            AnnotationProcessorUtils.hasPersistenceAnnotation(member, "ElementCollection");
+    }
+
+    private boolean isEagerToOne(Element member)
+    {
+        return (AnnotationProcessorUtils.hasPersistenceAnnotation(member, "ManyToOne") || AnnotationProcessorUtils.hasPersistenceAnnotation(member, "OneToOne")) &&
+            isEager(member, true);
+    }
+
+    /**
+     * Method to return whether the relation annotation of the member has fetch EAGER.
+     * @param member The member
+     * @param defaultEager Whether the default fetch type of the relation is EAGER
+     * @return Whether it is EAGER
+     */
+    private boolean isEager(Element member, boolean defaultEager)
+    {
+        String[] fetchAnnotations = new String[] {"OneToOne", "ManyToOne", "OneToMany", "ManyToMany", "ElementCollection"};
+        for (String annotName : fetchAnnotations)
+        {
+            if (AnnotationProcessorUtils.hasPersistenceAnnotation(member, annotName))
+            {
+                Object fetch = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(member, annotName, "fetch");
+                return (fetch != null) ? "EAGER".equals(fetch.toString()) : defaultEager;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to return the related class of a to-one relation, taking into account any targetEntity.
+     * @param member The member
+     * @return The related class
+     */
+    private TypeElement getRelatedType(Element member)
+    {
+        TypeMirror type = AnnotationProcessorUtils.getDeclaredType(member);
+        for (String annotName : JPACriteriaProcessor.annotationsWithTargetEntity)
+        {
+            Object targetValue = AnnotationProcessorUtils.getValueForPersistenceAnnotationAttribute(member, annotName, "targetEntity");
+            if (targetValue != null)
+            {
+                type = (TypeMirror)targetValue;
+                break;
+            }
+        }
+        Element typeEl = processingEnv.getTypeUtils().asElement(type);
+        return (typeEl instanceof TypeElement) ? (TypeElement)typeEl : null;
+    }
+
+    /**
+     * Method to return whether the rule is suppressed, either globally or by SuppressWarnings on the element
+     * or any enclosing element.
+     * @param rule The rule
+     * @param el The element
+     * @return Whether suppressed
+     */
+    private boolean isSuppressed(String rule, Element el)
+    {
+        if (suppressedRules.contains(rule))
+        {
+            return true;
+        }
+        for (Element e = el; e != null; e = e.getEnclosingElement())
+        {
+            SuppressWarnings suppress = e.getAnnotation(SuppressWarnings.class);
+            if (suppress != null)
+            {
+                for (String value : suppress.value())
+                {
+                    if (value.equals(SUPPRESS_PREFIX) || value.equals(SUPPRESS_PREFIX + ":" + rule))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void report(String rule, Element el, String msg)
+    {
+        if (!isSuppressed(rule, el))
+        {
+            processingEnv.getMessager().printMessage(strict ? Diagnostic.Kind.ERROR : Diagnostic.Kind.WARNING,
+                "[" + SUPPRESS_PREFIX + ":" + rule + "] " + msg, el);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation for an interface or class that is a projection of (some of) the attributes of an entity or embeddable,
+ * for use with Criteria <i>construct</i> queries. The projected attributes are
+ * <ul>
+ * <li>for an interface : its abstract methods, named either as java bean getters or as the attribute</li>
+ * <li>for a class : its (non-static, non-transient) fields, and the class must have a constructor taking them in declaration order</li>
+ * </ul>
+ * For a projection X in package p, the annotation processor generates a class X_Projection in package p that provides
+ * the static <i>selection</i> of the projected attributes for use with CriteriaQuery.select, and that also implements
+ * X when X is an interface.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Projection
+{
+    /**
+     * The entity (or embeddable) being projected.
+     * @return The entity class
+     */
+    Class<?> value();
+}
@@ -0,0 +1,496 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.datanucleus.jpa.query.AnnotationProcessorUtils.TypeCategory;
+import org.datanucleus.jpa.query.JPACriteriaProcessor.MetamodelAttribute;
+
+/**
+ * Generator for the classes supporting a {@link Projection} of an entity.
+ * For a projection X in package p, a class X_Projection is created in package p which
+ * <ul>
+ * <li>has a static <i>selection</i> method returning the CriteriaBuilder <i>construct</i> selection of the projected
+ * attributes, using the attributes of the metamodel classes</li>
+ * <li>for an interface projection, implements the interface holding the projected values, so is what is constructed</li>
+ * </ul>
+ * Each projected attribute is checked against the persistent attributes of the entity, and any unknown attribute,
+ * non-singular attribute, or type mismatch is reported as a compilation error.
+ */
+public class ProjectionGenerator
+{
+    public static final String CLASS_NAME_SUFFIX = "_Projection";
+
+    private static final String CODE_INDENT = "    ";
+
+    private final JPACriteriaProcessor processor;
+
+    private final ProcessingEnvironment processingEnv;
+
+    /**
+     * Representation of one projected attribute.
+     */
+    static class ProjectedAttribute
+    {
+        String name;
+        TypeMirror type;
+        String typeName;
+        Element member;
+        MetamodelAttribute attribute;
+
+        ProjectedAttribute(String name, TypeMirror type, String typeName, Element member)
+        {
+            this.name = name;
+            this.type = type;
+            this.typeName = typeName;
+            this.member = member;
+        }
+    }
+
+    public ProjectionGenerator(JPACriteriaProcessor processor, ProcessingEnvironment processingEnv)
+    {
+        this.processor = processor;
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Method to validate the supplied projection against its entity and generate its projection class.
+     * @param el The projection interface or class element
+     */
+    public void generate(TypeElement el)
+    {
+        Object entityValue = AnnotationProcessorUtils.getValueForAnnotationAttribute(el, Projection.class, "value");
+        TypeElement entityEl = (entityValue != null) ? (TypeElement)processingEnv.getTypeUtils().asElement((TypeMirror)entityValue) : null;
+        if (entityEl == null ||
+            (!AnnotationProcessorUtils.hasPersistenceAnnotation(entityEl, "Entity") && !AnnotationProcessorUtils.hasPersistenceAnnotation(entityEl, "Embeddable")))
+        {
+            error("Projection " + el + " must specify an entity or embeddable, but has " + entityValue, el);
+            return;
+        }
+        if (!el.getTypeParameters().isEmpty())
+        {
+            error("Projection " + el + " cannot have type parameters", el);
+            return;
+        }
+
+        boolean isInterface = (el.getKind() == ElementKind.INTERFACE);
+        List<ProjectedAttribute> projAttrs = isInterface ? getInterfaceAttributes(el, new ArrayList<ProjectedAttribute>()) : getClassAttributes(el);
+        if (projAttrs.isEmpty())
+        {
+            error("Projection " + el + " has no projected attributes", el);
+            return;
+        }
+
+        boolean valid = true;
+        List<MetamodelAttribute> entityAttrs = processor.getAllMetamodelAttributes(entityEl);
+        for (ProjectedAttribute projAttr : projAttrs)
+        {
+            valid &= validateAttribute(entityEl, entityAttrs, projAttr);
+        }
+        if (!isInterface && valid && getConstructor(el, projAttrs) == null)
+        {
+            error("Projection " + el + " has no constructor taking its projected attributes " + getParameterList(projAttrs), el);
+            valid = false;
+        }
+        if (!valid)
+        {
+            return;
+        }
+
+        writeProjectionClass(el, entityEl, projAttrs, isInterface);
+        if (processor.nativeImageConfigGenerator != null)
+        {
+            // construct() instantiates the projection reflectively using the constructor taking the projected attributes
+            List<TypeMirror> paramTypes = new ArrayList<TypeMirror>();
+            for (ProjectedAttribute projAttr : projAttrs)
+            {
+                paramTypes.add(projAttr.type);
+            }
+            String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+            processor.nativeImageConfigGenerator.addConstructedClass(isInterface ? className + CLASS_NAME_SUFFIX : className, paramTypes);
+        }
+    }
+
+    /**
+     * Method to return the projected attributes of an interface, being its abstract methods, with those of
+     * superinterfaces first.
+     * @param el The interface
+     * @param projAttrs The projected attributes found so far
+     * @return The projected attributes
+     */
+    protected List<ProjectedAttribute> getInterfaceAttributes(TypeElement el, List<ProjectedAttribute> projAttrs)
+    {
+        for (TypeMirror superIntf : el.getInterfaces())
+        {
+            getInterfaceAttributes((TypeElement)processingEnv.getTypeUtils().asElement(superIntf), projAttrs);
+        }
+
+        for (Element member : el.getEnclosedElements())
+        {
+            if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.ABSTRACT))
+            {
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement)member;
+            if (!method.getParameters().isEmpty() || AnnotationProcessorUtils.returnsVoid(method))
+            {
+                error("Projection method " + method + " must take no parameters and return the attribute value", method);
+                continue;
+            }
+
+            String name = AnnotationProcessorUtils.getMemberName(method);
+            if (name == null)
+            {
+                name = method.getSimpleName().toString();
+            }
+            boolean present = false;
+            for (ProjectedAttribute projAttr : projAttrs)
+            {
+                if (projAttr.member.getSimpleName().equals(method.getSimpleName()))
+                {
+                    // Redeclared from a superinterface
+                    present = true;
+                    break;
+                }
+            }
+            if (!present)
+            {
+                TypeMirror type = method.getReturnType();
+                projAttrs.add(new ProjectedAttribute(name, type, AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, type, false), method));
+            }
+        }
+        return projAttrs;
+    }
+
+    /**
+     * Method to return the projected attributes of a class, being its non-static, non-transient fields.
+     * @param el The class
+     * @return The projected attributes
+     */
+    protected List<ProjectedAttribute> getClassAttributes(TypeElement el)
+    {
+        List<ProjectedAttribute> projAttrs = new ArrayList<ProjectedAttribute>();
+        for (Element member : el.getEnclosedElements())
+        {
+            if (member.getKind() == ElementKind.FIELD &&
+                !member.getModifiers().contains(Modifier.STATIC) && !member.getModifiers().contains(Modifier.TRANSIENT))
+            {
+                TypeMirror type = member.asType();
+                projAttrs.add(new ProjectedAttribute(member.getSimpleName().toString(), type,
+                    AnnotationProcessorUtils.getDeclaredTypeName(processingEnv, type, false), member));
+            }
+        }
+        return projAttrs;
+    }
+
+    /**
+     * Method to check the projected attribute against the attributes of the entity, setting the matching attribute.
+     * @param entityEl The entity
+     * @param entityAttrs The metamodel attributes of the entity (including inherited attributes)
+     * @param projAttr The projected attribute
+     * @return Whether it is valid
+     */
+    protected boolean validateAttribute(TypeElement entityEl, List<MetamodelAttribute> entityAttrs, ProjectedAttribute projAttr)
+    {
+        for (MetamodelAttribute attr : entityAttrs)
+        {
+            if (attr.name.equals(projAttr.name))
+            {
+                projAttr.attribute = attr;
+                break;
+            }
+        }
+        if (projAttr.attribute == null)
+        {
+            error("Projection attribute \"" + projAttr.name + "\" is not a persistent attribute of " + entityEl, projAttr.member);
+            return false;
+        }
+        if (projAttr.attribute.category != TypeCategory.ATTRIBUTE)
+        {
+            error("Projection attribute \"" + projAttr.name + "\" is a " + projAttr.attribute.category.getTypeName() + " of " + entityEl +
+                " but only singular attributes can be projected", projAttr.member);
+            return false;
+        }
+
+        // Compare (boxed) types, with the attribute type as seen from the entity so that generic superclasses are resolved
+        Types typeUtils = processingEnv.getTypeUtils();
+        TypeMirror attrType = AnnotationProcessorUtils.getDeclaredType(projAttr.attribute.member);
+        try
+        {
+            TypeMirror memberType = typeUtils.asMemberOf((DeclaredType)entityEl.asType(), projAttr.attribute.member);
+            attrType = (memberType instanceof ExecutableType) ? ((ExecutableType)memberType).getReturnType() : memberType;
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Not a member of the entity type, so use the declared type
+        }
+        if (!typeUtils.isAssignable(getBoxedType(attrType), getBoxedType(projAttr.type)))
+        {
+            error("Projection attribute \"" + projAttr.name + "\" has type " + projAttr.type + " but attribute \"" + projAttr.attribute.name +
+                "\" of " + entityEl + " has type " + attrType, projAttr.member);
+            return false;
+        }
+        if (AnnotationProcessorUtils.typeIsPrimitive(projAttr.type) && !AnnotationProcessorUtils.typeIsPrimitive(attrType))
+        {
+            // A null attribute value could not be passed to the primitive constructor parameter
+            error("Projection attribute \"" + projAttr.name + "\" has primitive type " + projAttr.type + " but attribute \"" + projAttr.attribute.name +
+                "\" of " + entityEl + " has type " + attrType + " so can be null; use " + getBoxedType(projAttr.type) + " instead", projAttr.member);
+            return false;
+        }
+        return true;
+    }
+
+    private TypeMirror getBoxedType(TypeMirror type)
+    {
+        if (AnnotationProcessorUtils.typeIsPrimitive(type))
+        {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType)type).asType();
+        }
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    /**
+     * Method to find the constructor of a projection class taking the projected attributes, in order.
+     * @param el The projection class
+     * @param projAttrs The projected attributes
+     * @return The constructor, or null if there is none
+     */
+    protected ExecutableElement getConstructor(TypeElement el, List<ProjectedAttribute> projAttrs)
+    {
+        Types typeUtils = processingEnv.getTypeUtils();
+        for (Element member : el.getEnclosedElements())
+        {
+            if (member.getKind() != ElementKind.CONSTRUCTOR || member.getModifiers().contains(Modifier.PRIVATE))
+            {
+                continue;
+            }
+            ExecutableElement ctr = (ExecutableElement)member;
+            if (ctr.getParameters().size() != projAttrs.size())
+            {
+                continue;
+            }
+            boolean matches = true;
+            for (int i=0;i<projAttrs.size();i++)
+            {
+                if (!typeUtils.isSameType(typeUtils.erasure(ctr.getParameters().get(i).asType()), typeUtils.erasure(projAttrs.get(i).type)))
+                {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches)
+            {
+                return ctr;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method to write the source of the projection class.
+     * @param el The projection interface or class
+     * @param entityEl The entity being projected
+     * @param projAttrs The projected attributes
+     * @param isInterface Whether the projection is an interface (so needs implementing)
+     */
+    protected void writeProjectionClass(TypeElement el, TypeElement entityEl, List<ProjectedAttribute> projAttrs, boolean isInterface)
+    {
+        String className = processingEnv.getElementUtils().getBinaryName(el).toString();
+        String pkgName = className.substring(0, className.lastIndexOf('.'));
+        String classSimpleName = className.substring(className.lastIndexOf('.') + 1);
+        String projClassSimpleName = classSimpleName + CLASS_NAME_SUFFIX;
+        String constructedName = isInterface ? projClassSimpleName : el.getQualifiedName().toString();
+        String criteriaPkg = processor.getMetamodelNamespace(entityEl) + ".persistence.criteria.";
+        System.out.println("DataNucleus : JPA Projection - " + className + " -> " + className + CLASS_NAME_SUFFIX);
+
+        try
+        {
+            JavaFileObject javaFile = processingEnv.getFiler().createSourceFile(className + CLASS_NAME_SUFFIX, el);
+            Writer w = javaFile.openWriter();
+            try
+            {
+                w.append("package " + pkgName + ";\n");
+                w.append("\n");
+                w.append("import javax.annotation.processing.Generated;\n");
+                w.append("\n");
+                w.append("/**\n");
+                w.append(" * Projection " + el.getSimpleName() + " of " + entityEl.getSimpleName() + ".\n");
+                w.append(" */\n");
+                w.append("@Generated(value=\"" + processor.getClass().getName() + "\")\n");
+                w.append("public final class " + projClassSimpleName + (isInterface ? " implements " + el.getQualifiedName() : "") + "\n");
+                w.append("{\n");
+                if (isInterface)
+                {
+                    for (ProjectedAttribute projAttr : projAttrs)
+                    {
+                        w.append(CODE_INDENT).append("private final " + projAttr.typeName + " " + projAttr.name + ";\n");
+                    }
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("public " + projClassSimpleName + "(" + getParameterList(projAttrs) + ")\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    for (ProjectedAttribute projAttr : projAttrs)
+                    {
+                        w.append(CODE_INDENT).append(CODE_INDENT).append("this." + projAttr.name + " = " + projAttr.name + ";\n");
+                    }
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                else
+                {
+                    w.append(CODE_INDENT).append("private " + projClassSimpleName + "()\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                w.append("\n");
+
+                // Selection of the projected attributes from a path to the entity
+                w.append(CODE_INDENT).append("/**\n");
+                w.append(CODE_INDENT).append(" * Selection constructing " + constructedName + " from the projected attributes of " + entityEl.getSimpleName() + ".\n");
+                w.append(CODE_INDENT).append(" * @param cb The criteria builder\n");
+                w.append(CODE_INDENT).append(" * @param path Path to the " + entityEl.getSimpleName() + " (e.g the query root)\n");
+                w.append(CODE_INDENT).append(" * @return The selection\n");
+                w.append(CODE_INDENT).append(" */\n");
+                w.append(CODE_INDENT).append("public static " + criteriaPkg + "CompoundSelection<" + constructedName + "> selection(" +
+                    criteriaPkg + "CriteriaBuilder cb, " + criteriaPkg + "Path<? extends " + entityEl.getQualifiedName() + "> path)\n");
+                w.append(CODE_INDENT).append("{\n");
+                w.append(CODE_INDENT).append(CODE_INDENT).append("return cb.construct(" + constructedName + ".class");
+                for (ProjectedAttribute projAttr : projAttrs)
+                {
+                    TypeElement declaringEl = (TypeElement)projAttr.attribute.member.getEnclosingElement();
+                    w.append(",\n").append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT)
+                        .append("path.get(" + processor.getMetamodelClassName(declaringEl) + "." + projAttr.attribute.name + ")");
+                }
+                w.append(");\n");
+                w.append(CODE_INDENT).append("}\n");
+
+                if (isInterface)
+                {
+                    // Accessors
+                    for (ProjectedAttribute projAttr : projAttrs)
+                    {
+                        w.append("\n");
+                        w.append(CODE_INDENT).append("@Override\n");
+                        w.append(CODE_INDENT).append("public " + projAttr.typeName + " " + projAttr.member.getSimpleName() + "()\n");
+                        w.append(CODE_INDENT).append("{\n");
+                        w.append(CODE_INDENT).append(CODE_INDENT).append("return this." + projAttr.name + ";\n");
+                        w.append(CODE_INDENT).append("}\n");
+                    }
+                    w.append("\n");
+
+                    // hashCode, equals, toString
+                    w.append(CODE_INDENT).append("@Override\n");
+                    w.append(CODE_INDENT).append("public int hashCode()\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("int h = 1;\n");
+                    for (ProjectedAttribute projAttr : projAttrs)
+                    {
+                        w.append(CODE_INDENT).append(CODE_INDENT).append("h = 31 * h + " +
+                            AnnotationProcessorUtils.getHashCodeExpression(projAttr.type, "this." + projAttr.name) + ";\n");
+                    }
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return h;\n");
+                    w.append(CODE_INDENT).append("}\n");
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("@Override\n");
+                    w.append(CODE_INDENT).append("public boolean equals(Object obj)\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("if (obj == this)\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return true;\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("if (!(obj instanceof " + projClassSimpleName + "))\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT).append("return false;\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("}\n");
+                    String otherExpr = "((" + projClassSimpleName + ")obj)";
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return ");
+                    for (int i=0;i<projAttrs.size();i++)
+                    {
+                        if (i > 0)
+                        {
+                            w.append(" &&\n").append(CODE_INDENT).append(CODE_INDENT).append(CODE_INDENT);
+                        }
+                        w.append(AnnotationProcessorUtils.getEqualsExpression(projAttrs.get(i).type,
+                            "this." + projAttrs.get(i).name, otherExpr + "." + projAttrs.get(i).name));
+                    }
+                    w.append(";\n");
+                    w.append(CODE_INDENT).append("}\n");
+                    w.append("\n");
+                    w.append(CODE_INDENT).append("@Override\n");
+                    w.append(CODE_INDENT).append("public String toString()\n");
+                    w.append(CODE_INDENT).append("{\n");
+                    w.append(CODE_INDENT).append(CODE_INDENT).append("return \"" + el.getSimpleName() + "[\"");
+                    for (int i=0;i<projAttrs.size();i++)
+                    {
+                        ProjectedAttribute projAttr = projAttrs.get(i);
+                        w.append(" + \"" + (i > 0 ? ", " : "") + projAttr.name + "=\" + " +
+                            (projAttr.type.getKind() == TypeKind.ARRAY ? "java.util.Arrays.toString(this." + projAttr.name + ")" : "this." + projAttr.name));
+                    }
+                    w.append(" + \"]\";\n");
+                    w.append(CODE_INDENT).append("}\n");
+                }
+                w.append("}\n");
+                w.flush();
+            }
+            finally
+            {
+                w.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private String getParameterList(List<ProjectedAttribute> projAttrs)
+    {
+        StringBuilder str = new StringBuilder();
+        for (ProjectedAttribute projAttr : projAttrs)
+        {
+            if (str.length() > 0)
+            {
+                str.append(", ");
+            }
+            str.append(projAttr.typeName).append(" ").append(projAttr.name);
+        }
+        return str.toString();
+    }
+
+    private void error(String msg, Element el)
+    {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, el);
+    }
+}
@@ -0,0 +1,187 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+**********************************************************************/
+package org.datanucleus.jpa.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.metamodel.StaticMetamodel;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for MetamodelClassWriter, compiling sample persistent classes with the metamodel written as class files
+ * and then loading (and so verifying) the metamodel classes and checking their generic signatures and annotations.
+ */
+public class MetamodelClassWriterTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testMetamodelClasses() throws Exception
+    {
+        writeSource("t/Base.java",
+            "package t;\n" +
+            "@javax.persistence.MappedSuperclass\n" +
+            "public abstract class Base\n" +
+            "{\n" +
+            "    @javax.persistence.Version long version;\n" +
+            "}\n");
+        writeSource("t/NotBlank.java",
+            "package t;\n" +
+            "@java.lang.annotation.Target(java.lang.annotation.ElementType.TYPE_USE)\n" +
+            "public @interface NotBlank {}\n");
+        writeSource("t/Owner.java",
+            "package t;\n" +
+            "public interface Owner {}\n");
+        writeSource("t/OwnerImpl.java",
+            "package t;\n" +
+            "@javax.persistence.Entity\n" +
+            "public class OwnerImpl implements Owner\n" +
+            "{\n" +
+            "    @javax.persistence.Id long id;\n" +
+            "}\n");
+        writeSource("t/Holder.java",
+            "package t;\n" +
+            "import java.util.*;\n" +
+            "import javax.persistence.*;\n" +
+            "@Entity\n" +
+            "public class Holder extends Base\n" +
+            "{\n" +
+            "    @Embeddable\n" +
+            "    public static class Inner\n" +
+            "    {\n" +
+            "        String code;\n" +
+            "    }\n" +
+            "    @Id long id;\n" +
+            "    int count;\n" +
+            "    boolean active;\n" +
+            "    byte[] data;\n" +
+            "    String[] tags;\n" +
+            "    @NotBlank String note;\n" +
+            "    @Embedded Inner inner;\n" +
+            "    Map<String, Inner> inners;\n" +
+            "    Map<Long, @NotBlank String> labels;\n" +
+            "    @ManyToOne(targetEntity=OwnerImpl.class) Owner owner;\n" +
+            "    @OneToMany(targetEntity=OwnerImpl.class) Set<Owner> owners;\n" +
+            "    List<Date> dates;\n" +
+            "    Collection<Inner> inners2;\n" +
+            "}\n");
+
+        ClassLoader loader = compile(JPACriteriaProcessor.OPTION_METAMODEL_OUTPUT + "=class");
+
+        Class<?> holderMetamodel = loader.loadClass("t.Holder_");
+        assertEquals(loader.loadClass("t.Holder"), holderMetamodel.getAnnotation(StaticMetamodel.class).value());
+        assertEquals(loader.loadClass("t.Base_"), holderMetamodel.getSuperclass());
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("id", "javax.persistence.metamodel.SingularAttribute<t.Holder, java.lang.Long>");
+        expected.put("count", "javax.persistence.metamodel.SingularAttribute<t.Holder, java.lang.Integer>");
+        expected.put("active", "javax.persistence.metamodel.SingularAttribute<t.Holder, java.lang.Boolean>");
+        expected.put("data", "javax.persistence.metamodel.SingularAttribute<t.Holder, byte[]>");
+        expected.put("tags", "javax.persistence.metamodel.SingularAttribute<t.Holder, java.lang.String[]>");
+        expected.put("note", "javax.persistence.metamodel.SingularAttribute<t.Holder, java.lang.String>");
+        expected.put("inner", "javax.persistence.metamodel.SingularAttribute<t.Holder, t.Holder$Inner>");
+        expected.put("inners", "javax.persistence.metamodel.MapAttribute<t.Holder, java.lang.String, t.Holder$Inner>");
+        expected.put("labels", "javax.persistence.metamodel.MapAttribute<t.Holder, java.lang.Long, java.lang.String>");
+        expected.put("owner", "javax.persistence.metamodel.SingularAttribute<t.Holder, t.OwnerImpl>");
+        expected.put("owners", "javax.persistence.metamodel.SetAttribute<t.Holder, t.OwnerImpl>");
+        expected.put("dates", "javax.persistence.metamodel.ListAttribute<t.Holder, java.util.Date>");
+        expected.put("inners2", "javax.persistence.metamodel.CollectionAttribute<t.Holder, t.Holder$Inner>");
+        assertFields(holderMetamodel, expected);
+
+        Class<?> baseMetamodel = loader.loadClass("t.Base_");
+        assertEquals(loader.loadClass("t.Base"), baseMetamodel.getAnnotation(StaticMetamodel.class).value());
+        assertEquals(Object.class, baseMetamodel.getSuperclass());
+        assertFields(baseMetamodel, Collections.singletonMap("version", "javax.persistence.metamodel.SingularAttribute<t.Base, java.lang.Long>"));
+
+        // The metamodel classes must be instantiable, using the generated constructor
+        assertTrue(holderMetamodel.getConstructor().newInstance() instanceof Object);
+    }
+
+    private void assertFields(Class<?> cls, Map<String, String> expected) throws IllegalAccessException
+    {
+        Field[] fields = cls.getDeclaredFields();
+        assertEquals(expected.keySet() + " vs " + Arrays.toString(fields), expected.size(), fields.length);
+        for (Field field : fields)
+        {
+            String type = expected.get(field.getName());
+            assertEquals("public static volatile " + type + " " + cls.getName() + "." + field.getName(), field.toGenericString());
+            assertNull(field.get(null));
+        }
+    }
+
+    private void writeSource(String path, String source) throws IOException
+    {
+        File file = new File(tmp.getRoot(), "src/" + path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ClassLoader compile(String... options) throws Exception
+    {
+        File srcDir = new File(tmp.getRoot(), "src");
+        File outDir = tmp.newFolder("out");
+        File genDir = tmp.newFolder("gen");
+        List<File> sources = new ArrayList<File>();
+        for (File pkgDir : srcDir.listFiles())
+        {
+            sources.addAll(Arrays.asList(pkgDir.listFiles()));
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        List<String> args = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path"),
+            "-d", outDir.getPath(), "-s", genDir.getPath()));
+        for (String option : options)
+        {
+            args.add("-A" + option);
+        }
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, args, null, fileManager.getJavaFileObjectsFromFiles(sources));
+        task.setProcessors(Collections.singletonList(new JPACriteriaProcessor()));
+        boolean success = task.call();
+        fileManager.close();
+        assertTrue(diagnostics.getDiagnostics().toString(), success);
+        assertEquals("Metamodel should not be written as source", 0, genDir.list().length);
+
+        return new URLClassLoader(new URL[] {outDir.toURI().toURL()}, getClass().getClassLoader());
+    }
+}